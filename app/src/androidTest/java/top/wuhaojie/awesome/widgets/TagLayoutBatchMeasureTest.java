@@ -0,0 +1,73 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.graphics.Paint;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 批量测量与逐个标签测量的结果逐一比较。需要在设备上运行，JVM 上没有真实的文字排版。
+ */
+@RunWith(AndroidJUnit4.class)
+public class TagLayoutBatchMeasureTest {
+
+    private static final int TEXT_SIZE = 60;
+
+    @Test
+    public void kerningPairs() {
+        // 标签内部和相邻标签首尾都是字距调整、连字的常见组合
+        check(Arrays.asList("AV", "To", "WA", "Ty", "ffi", "fl", "VA", "LT", "Yo", "AT"));
+    }
+
+    @Test
+    public void rtlAndMixedText() {
+        check(Arrays.asList("שלום", "مرحبا", "abc", "سلام عليكم", "Hello עולם", "١٢٣", "标签", "ب", "A"));
+    }
+
+    @Test
+    public void emojiAndEmptyTags() {
+        check(Arrays.asList("", "👍", "a", "👨‍👩‍👧", "", "标签😀"));
+    }
+
+    @Test
+    public void spansSeveralBatches() {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tags.add(i % 3 == 0 ? "AV" + i : i % 3 == 1 ? "مرحبا" + i : "标签" + i);
+        }
+        check(tags);
+    }
+
+    private static void check(List<String> tags) {
+        TagLayout layout = new TagLayout.Builder()
+                .textSize(TEXT_SIZE)
+                .batchMeasure(true)
+                .build(tags);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(TEXT_SIZE);
+        Paint.FontMetrics metrics = paint.getFontMetrics();
+        int height = (int) Math.ceil(metrics.descent - metrics.ascent);
+
+        for (int i = 0; i < tags.size(); i++) {
+            String text = tags.get(i);
+            float[] advances = new float[text.length()];
+            paint.getTextWidths(text, advances);
+            float width = 0;
+            for (float advance : advances) {
+                width += advance;
+            }
+            assertEquals("width of \"" + text + "\"", (int) Math.ceil(width), layout.textWidths[i]);
+            assertEquals("height of \"" + text + "\"", height, layout.textHeights[i]);
+        }
+    }
+
+}
@@ -44,6 +44,12 @@ public class MainActivity extends AppCompatActivity {
         ));
 
 
+        // RadiusSegmentView
+        ((RadiusSegmentView) findViewById(R.id.view_segment)).setSegments(Arrays.asList(
+                "全部", "待付款", "待发货", "待收货", "已完成"
+        ));
+
+
         // PagerIndicatorView
         ViewPager viewPager = findViewById(R.id.view_pager);
         PagerIndicatorView indicatorView = findViewById(R.id.view_indicator);
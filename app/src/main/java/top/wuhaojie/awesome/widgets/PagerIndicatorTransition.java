@@ -0,0 +1,352 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.animation.TimeInterpolator;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+
+/**
+ * PagerIndicatorView 选中块的过渡效果。
+ * <p>
+ * 插值器在创建时采样成查找表，绘制时只做查表和线性插值，
+ * 自定义效果继承本类，使用 {@link #sample(TimeInterpolator)} 和 {@link #lookup(float[], float)} 即可。
+ */
+public abstract class PagerIndicatorTransition {
+
+    /**
+     * 查找表分段数，0.3 / 0.7 等常用拐点恰好落在采样点上
+     */
+    private static final int TABLE_SIZE = 100;
+
+    /**
+     * 单帧绘制参数，由 PagerIndicatorView 复用同一个实例填充。
+     */
+    public static final class Frame {
+
+        float fromX;
+
+        float toX;
+
+        float centerY;
+
+        float radius;
+
+        float fraction;
+
+        int normalColor;
+
+        int selectedColor;
+
+        /**
+         * 当前页圆点中心 x 坐标
+         */
+        public float getFromX() {
+            return fromX;
+        }
+
+        /**
+         * 下一页圆点中心 x 坐标
+         */
+        public float getToX() {
+            return toX;
+        }
+
+        public float getCenterY() {
+            return centerY;
+        }
+
+        public float getRadius() {
+            return radius;
+        }
+
+        /**
+         * 翻页进度，取值 [0, 1)
+         */
+        public float getFraction() {
+            return fraction;
+        }
+
+        public int getNormalColor() {
+            return normalColor;
+        }
+
+        public int getSelectedColor() {
+            return selectedColor;
+        }
+
+    }
+
+    /**
+     * 计算选中块的绘制范围，用于局部刷新。
+     */
+    public abstract void getBounds(@NonNull Frame frame, @NonNull RectF out);
+
+    /**
+     * 绘制选中块，不要在此方法中创建对象。
+     */
+    public abstract void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Frame frame);
+
+    /**
+     * 选中块是否完全覆盖其范围内的圆点，覆盖时这些圆点不再绘制。
+     */
+    public boolean coversDots() {
+        return true;
+    }
+
+    /**
+     * 将插值器采样为查找表。
+     */
+    @NonNull
+    protected static float[] sample(@NonNull TimeInterpolator interpolator) {
+        float[] table = new float[TABLE_SIZE + 1];
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            table[i] = interpolator.getInterpolation(i / (float) TABLE_SIZE);
+        }
+        return table;
+    }
+
+    /**
+     * 查表并在相邻采样点间线性插值。
+     */
+    protected static float lookup(@NonNull float[] table, float fraction) {
+        if (fraction <= 0) {
+            return table[0];
+        }
+        if (fraction >= 1) {
+            return table[TABLE_SIZE];
+        }
+        float position = fraction * TABLE_SIZE;
+        int i = (int) position;
+        return lerp(table[i], table[i + 1], position - i);
+    }
+
+    protected static float lerp(float from, float to, float fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    /**
+     * 按通道线性插值颜色。
+     */
+    protected static int lerpColor(int from, int to, float fraction) {
+        int a = (int) lerp((from >>> 24), (to >>> 24), fraction);
+        int r = (int) lerp((from >> 16) & 0xFF, (to >> 16) & 0xFF, fraction);
+        int g = (int) lerp((from >> 8) & 0xFF, (to >> 8) & 0xFF, fraction);
+        int b = (int) lerp(from & 0xFF, to & 0xFF, fraction);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static final TimeInterpolator LINEAR = new TimeInterpolator() {
+
+        @Override
+        public float getInterpolation(float input) {
+            return input;
+        }
+
+    };
+
+    /**
+     * 默认的蠕虫效果：前沿在前 30% 进度内到达下一页，后沿在后 30% 进度内跟上。
+     */
+    private static final TimeInterpolator WORM_HEAD = new TimeInterpolator() {
+
+        @Override
+        public float getInterpolation(float input) {
+            return Math.min(input / 0.3F, 1);
+        }
+
+    };
+
+    private static final TimeInterpolator WORM_TAIL = new TimeInterpolator() {
+
+        @Override
+        public float getInterpolation(float input) {
+            float factor = 0.3F;
+            if (input < (1 - factor)) {
+                return 0;
+            }
+            return (input - (1 - factor)) / factor;
+        }
+
+    };
+
+    /**
+     * 蠕虫效果，选中块先拉长再收缩。
+     */
+    @NonNull
+    public static PagerIndicatorTransition worm() {
+        return worm(WORM_HEAD, WORM_TAIL);
+    }
+
+    /**
+     * 蠕虫效果。
+     *
+     * @param head 前沿位置插值器
+     * @param tail 后沿位置插值器
+     */
+    @NonNull
+    public static PagerIndicatorTransition worm(@NonNull TimeInterpolator head, @NonNull TimeInterpolator tail) {
+        return new WormTransition(sample(head), sample(tail));
+    }
+
+    /**
+     * 平移效果，选中圆点从当前页移动到下一页。
+     */
+    @NonNull
+    public static PagerIndicatorTransition slide() {
+        return slide(LINEAR);
+    }
+
+    @NonNull
+    public static PagerIndicatorTransition slide(@NonNull TimeInterpolator interpolator) {
+        return new SlideTransition(sample(interpolator));
+    }
+
+    /**
+     * 缩放效果，当前页选中圆点缩小，下一页选中圆点放大。
+     */
+    @NonNull
+    public static PagerIndicatorTransition scale() {
+        return scale(LINEAR);
+    }
+
+    @NonNull
+    public static PagerIndicatorTransition scale(@NonNull TimeInterpolator interpolator) {
+        return new ScaleTransition(sample(interpolator));
+    }
+
+    /**
+     * 颜色渐变效果，当前页渐变为普通颜色，下一页渐变为选中颜色。
+     */
+    @NonNull
+    public static PagerIndicatorTransition colorFade() {
+        return colorFade(LINEAR);
+    }
+
+    @NonNull
+    public static PagerIndicatorTransition colorFade(@NonNull TimeInterpolator interpolator) {
+        return new ColorFadeTransition(sample(interpolator));
+    }
+
+
+    private static final class WormTransition extends PagerIndicatorTransition {
+
+        private final float[] head;
+
+        private final float[] tail;
+
+        private final RectF rect = new RectF();
+
+        WormTransition(float[] head, float[] tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+
+        @Override
+        public void getBounds(@NonNull Frame frame, @NonNull RectF out) {
+            float distance = frame.toX - frame.fromX;
+            float right = frame.fromX + lookup(head, frame.fraction) * distance;
+            float left = frame.fromX + lookup(tail, frame.fraction) * distance;
+
+            out.left = left - frame.radius;
+            out.top = frame.centerY - frame.radius;
+            out.right = right + frame.radius;
+            out.bottom = frame.centerY + frame.radius;
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Frame frame) {
+            getBounds(frame, rect);
+            paint.setColor(frame.selectedColor);
+            canvas.drawRoundRect(rect, frame.radius, frame.radius, paint);
+        }
+
+    }
+
+    private static final class SlideTransition extends PagerIndicatorTransition {
+
+        private final float[] table;
+
+        SlideTransition(float[] table) {
+            this.table = table;
+        }
+
+        private float currentX(Frame frame) {
+            return lerp(frame.fromX, frame.toX, lookup(table, frame.fraction));
+        }
+
+        @Override
+        public void getBounds(@NonNull Frame frame, @NonNull RectF out) {
+            float x = currentX(frame);
+            out.set(x - frame.radius, frame.centerY - frame.radius, x + frame.radius, frame.centerY + frame.radius);
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Frame frame) {
+            paint.setColor(frame.selectedColor);
+            canvas.drawCircle(currentX(frame), frame.centerY, frame.radius, paint);
+        }
+
+    }
+
+    private static final class ScaleTransition extends PagerIndicatorTransition {
+
+        private final float[] table;
+
+        ScaleTransition(float[] table) {
+            this.table = table;
+        }
+
+        @Override
+        public void getBounds(@NonNull Frame frame, @NonNull RectF out) {
+            out.set(frame.fromX - frame.radius, frame.centerY - frame.radius, frame.toX + frame.radius, frame.centerY + frame.radius);
+        }
+
+        @Override
+        public boolean coversDots() {
+            return false;
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Frame frame) {
+            float progress = lookup(table, frame.fraction);
+            paint.setColor(frame.selectedColor);
+            canvas.drawCircle(frame.fromX, frame.centerY, frame.radius * (1 - progress), paint);
+            if (frame.toX != frame.fromX) {
+                canvas.drawCircle(frame.toX, frame.centerY, frame.radius * progress, paint);
+            }
+        }
+
+    }
+
+    private static final class ColorFadeTransition extends PagerIndicatorTransition {
+
+        private final float[] table;
+
+        ColorFadeTransition(float[] table) {
+            this.table = table;
+        }
+
+        @Override
+        public void getBounds(@NonNull Frame frame, @NonNull RectF out) {
+            out.set(frame.fromX - frame.radius, frame.centerY - frame.radius, frame.toX + frame.radius, frame.centerY + frame.radius);
+        }
+
+        @Override
+        public void draw(@NonNull Canvas canvas, @NonNull Paint paint, @NonNull Frame frame) {
+            float progress = lookup(table, frame.fraction);
+            if (frame.toX == frame.fromX) {
+                paint.setColor(frame.selectedColor);
+                canvas.drawCircle(frame.fromX, frame.centerY, frame.radius, paint);
+                return;
+            }
+            paint.setColor(lerpColor(frame.selectedColor, frame.normalColor, progress));
+            canvas.drawCircle(frame.fromX, frame.centerY, frame.radius, paint);
+            paint.setColor(lerpColor(frame.normalColor, frame.selectedColor, progress));
+            canvas.drawCircle(frame.toX, frame.centerY, frame.radius, paint);
+        }
+
+    }
+
+}
@@ -1,6 +1,7 @@
 package top.wuhaojie.awesome.widgets;
 
 import android.content.Context;
+import android.database.DataSetObserver;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
@@ -8,15 +9,26 @@ import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager.widget.PagerAdapter;
 import androidx.viewpager.widget.ViewPager;
+import androidx.viewpager2.widget.ViewPager2;
+
+import top.wuhaojie.awesome.widgets.geometry.IndicatorGeometry;
 
 public class PagerIndicatorView extends View implements ViewPager.OnPageChangeListener {
 
     public static final int RADIUS = 12;
     public static final int SPACE = 10;
 
+    private static final int COLOR_NORMAL = 0xFFD6D6D6;
+
+    private static final int COLOR_SELECTED = Color.WHITE;
+
     private int count = 0;
 
     private int index = 0;
@@ -25,6 +37,34 @@ public class PagerIndicatorView extends View implements ViewPager.OnPageChangeLi
 
     private Paint mPaint;
 
+    // 各圆点的中心 x 坐标，尺寸、padding 或数量变化时重新计算
+    private float[] centers = new float[0];
+
+    private boolean centersDirty = true;
+
+    // 第一个可见圆点的中心 x 坐标
+    private float originX = 0;
+
+    // 窗口模式下最多展示的圆点数量，0 表示不限制
+    private int maxVisibleCount = 0;
+
+    // 窗口模式下窗口起始位置，随翻页进度平滑移动
+    private float windowStart = 0;
+
+    private final RectF pillRect = new RectF();
+
+    // 上一次绘制的选中块范围，用于局部刷新
+    private final RectF drawnPill = new RectF();
+
+    private final RectF dirtyPill = new RectF();
+
+    // 当前绑定的翻页控件
+    private Binding binding;
+
+    private PagerIndicatorTransition transition = PagerIndicatorTransition.worm();
+
+    private final PagerIndicatorTransition.Frame frame = new PagerIndicatorTransition.Frame();
+
     public PagerIndicatorView(Context context) {
         super(context);
         init();
@@ -48,36 +88,127 @@ public class PagerIndicatorView extends View implements ViewPager.OnPageChangeLi
 
     @Override
     public void draw(Canvas canvas) {
-        super.draw(canvas);
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_PAGER_INDICATOR_VIEW, WidgetMetrics.PHASE_DRAW);
+        try {
+            super.draw(canvas);
+
+            if (count <= 0) {
+                return;
+            }
+            if (centersDirty) {
+                updateCenters();
+            }
+
+            // 窗口模式只绘制窗口内（含两端正在滑入、滑出）的圆点，与总数无关
+            int first = 0;
+            int last = count - 1;
+            if (isWindowed()) {
+                windowStart = windowStart();
+                first = Math.max((int) windowStart - 1, 0);
+                last = Math.min((int) windowStart + maxVisibleCount, count - 1);
+            }
+
+            computePill(pillRect);
+
+            float centerY = centerY(index);
+
+            mPaint.setColor(COLOR_NORMAL);
 
-        mPaint.setColor(Color.parseColor("#D6D6D6"));
+            // 完全被选中块覆盖的圆点不再绘制
+            boolean covers = transition.coversDots();
+            for (int i = first; i <= last; i++) {
+                float cx = dotX(i);
+                float radius = dotRadius(i);
+                if (radius <= 0 || (covers && cx - radius >= pillRect.left && cx + radius <= pillRect.right)) {
+                    continue;
+                }
+                canvas.drawCircle(cx, centerY, radius, mPaint);
+            }
+
+            transition.draw(canvas, mPaint, frame);
 
-        for (int i = 0; i < count; i++) {
-            canvas.drawCircle(centerX(i), centerY(i), RADIUS, mPaint);
+            drawnPill.set(pillRect);
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_PAGER_INDICATOR_VIEW, WidgetMetrics.PHASE_DRAW, start);
         }
+    }
 
-        float nextRightPosition = centerX(index) + rightFunction(percent) * (centerX(safePosition(index + 1)) - centerX(index));
-        float nextLeftPosition = centerX(index) + leftFunction(percent) * (centerX(safePosition(index + 1)) - centerX(index));
+    /**
+     * 填充当前帧参数，并计算选中块的范围。
+     */
+    private void computePill(RectF out) {
+        frame.fromX = dotX(safePosition(index));
+        frame.toX = dotX(safePosition(index + 1));
+        frame.centerY = centerY(index);
+        frame.radius = RADIUS;
+        frame.fraction = percent;
+        frame.normalColor = COLOR_NORMAL;
+        frame.selectedColor = COLOR_SELECTED;
+        transition.getBounds(frame, out);
+    }
 
-        // 矩形
-        mPaint.setColor(Color.parseColor("#FFFFFF"));
+    /**
+     * 设置选中块的过渡效果，默认为 {@link PagerIndicatorTransition#worm()}。
+     */
+    public void setTransition(@NonNull PagerIndicatorTransition transition) {
+        this.transition = transition;
+        drawnPill.setEmpty();
+        invalidate();
+    }
 
-        float left = nextLeftPosition;
-        float right = nextRightPosition;
-        float top = centerY(index) - RADIUS;
-        float bottom = top + 2 * RADIUS;
+    /**
+     * 设置窗口模式下最多展示的圆点数量，页数超过该值时只展示当前页附近的圆点，
+     * 两端圆点逐渐缩小，翻页时窗口平滑移动。
+     *
+     * @param maxVisibleCount 最多展示的数量，0 表示展示全部
+     */
+    public void setMaxVisibleCount(int maxVisibleCount) {
+        if (maxVisibleCount < 0) {
+            maxVisibleCount = 0;
+        }
+        if (this.maxVisibleCount == maxVisibleCount) {
+            return;
+        }
+        this.maxVisibleCount = maxVisibleCount;
+        centersDirty = true;
+        requestLayout();
+        invalidate();
+    }
 
-        canvas.drawRect(left, top, right, bottom, mPaint);
+    public int getMaxVisibleCount() {
+        return maxVisibleCount;
+    }
 
-        // 弧形
+    private boolean isWindowed() {
+        return maxVisibleCount > 0 && count > maxVisibleCount;
+    }
 
-        RectF leftArc = new RectF(left - RADIUS, top, left + RADIUS, bottom);
-        canvas.drawArc(leftArc, 90, 180, true, mPaint);
+    private int visibleCount() {
+        return isWindowed() ? maxVisibleCount : count;
+    }
 
+    /**
+     * 让当前页尽量处于窗口中央。
+     */
+    private float windowStart() {
+        return IndicatorGeometry.windowStart(index, percent, count, maxVisibleCount);
+    }
 
-        RectF rightArc = new RectF(right - RADIUS, top, right + RADIUS, bottom);
-        canvas.drawArc(rightArc, -90, 180, true, mPaint);
+    private float dotX(int position) {
+        if (isWindowed()) {
+            return IndicatorGeometry.windowDotX(originX, position, windowStart, RADIUS, SPACE);
+        }
+        return centers[position];
+    }
 
+    /**
+     * 窗口两端、且外侧还有圆点时逐渐缩小，完全滑出窗口时半径为 0。
+     */
+    private float dotRadius(int position) {
+        if (!isWindowed()) {
+            return RADIUS;
+        }
+        return IndicatorGeometry.windowDotRadius(position, windowStart, count, maxVisibleCount, RADIUS);
     }
 
 
@@ -85,34 +216,328 @@ public class PagerIndicatorView extends View implements ViewPager.OnPageChangeLi
         if (viewPager == null) {
             return;
         }
-        PagerAdapter adapter = viewPager.getAdapter();
-        if (adapter == null) {
+        if (viewPager.getAdapter() == null) {
             throw new IllegalStateException("please make sure the adapter is not null");
         }
-        count = adapter.getCount();
-        index = viewPager.getCurrentItem();
-        viewPager.addOnPageChangeListener(this);
+        bind(new ViewPagerBinding(viewPager));
+    }
+
+    public void bind(ViewPager2 viewPager) {
+        if (viewPager == null) {
+            return;
+        }
+        if (viewPager.getAdapter() == null) {
+            throw new IllegalStateException("please make sure the adapter is not null");
+        }
+        bind(new ViewPager2Binding(viewPager));
+    }
+
+    /**
+     * 绑定使用 PagerSnapHelper 的横向 RecyclerView，每页需与 RecyclerView 等宽。
+     */
+    public void bind(RecyclerView recyclerView) {
+        if (recyclerView == null) {
+            return;
+        }
+        if (recyclerView.getAdapter() == null) {
+            throw new IllegalStateException("please make sure the adapter is not null");
+        }
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+            throw new IllegalStateException("please make sure the layout manager is a LinearLayoutManager");
+        }
+        bind(new RecyclerViewBinding(recyclerView));
+    }
+
+    /**
+     * 解除绑定，移除所有监听。重复 bind 时会自动解除上一次绑定。
+     */
+    public void unbind() {
+        if (binding != null) {
+            binding.detach();
+            binding = null;
+        }
+    }
+
+    private void bind(Binding newBinding) {
+        unbind();
+        binding = newBinding;
+        index = binding.currentItem();
+        percent = 0;
+        setCount(binding.itemCount());
+        if (ViewCompat.isAttachedToWindow(this)) {
+            binding.attach();
+        }
+    }
+
+    private void setCount(int newCount) {
+        if (newCount < 0) {
+            newCount = 0;
+        }
+        if (index >= newCount) {
+            index = Math.max(newCount - 1, 0);
+        }
+        if (count == newCount) {
+            invalidate();
+            return;
+        }
+        boolean windowed = isWindowed();
+        count = newCount;
+        centersDirty = true;
+        // 窗口模式下宽度与数量无关
+        if (windowed && isWindowed()) {
+            invalidate();
+            return;
+        }
+        requestLayout();
         invalidate();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // 列表中复用时重新挂载监听，并同步脱离期间的变化
+        if (binding != null) {
+            binding.attach();
+            index = binding.currentItem();
+            setCount(binding.itemCount());
+        }
+    }
 
-    private float rightFunction(float percent) {
-        float result = (float) (percent / 0.3);
-        if (result > 1) {
-            result = 1;
+    @Override
+    protected void onDetachedFromWindow() {
+        if (binding != null) {
+            binding.detach();
         }
-        return result;
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * 与翻页控件的绑定，负责监听翻页进度和数据数量变化。
+     */
+    private abstract class Binding {
+
+        abstract int itemCount();
+
+        abstract int currentItem();
+
+        abstract void attach();
+
+        abstract void detach();
+
+    }
+
+    private final class ViewPagerBinding extends Binding implements ViewPager.OnAdapterChangeListener {
+
+        private final ViewPager viewPager;
+
+        private PagerAdapter adapter;
+
+        private final DataSetObserver observer = new DataSetObserver() {
+
+            @Override
+            public void onChanged() {
+                setCount(itemCount());
+            }
+
+        };
+
+        ViewPagerBinding(ViewPager viewPager) {
+            this.viewPager = viewPager;
+        }
+
+        @Override
+        int itemCount() {
+            PagerAdapter current = viewPager.getAdapter();
+            return current != null ? current.getCount() : 0;
+        }
+
+        @Override
+        int currentItem() {
+            return viewPager.getCurrentItem();
+        }
+
+        @Override
+        void attach() {
+            viewPager.addOnPageChangeListener(PagerIndicatorView.this);
+            viewPager.addOnAdapterChangeListener(this);
+            registerAdapter(viewPager.getAdapter());
+        }
+
+        @Override
+        void detach() {
+            viewPager.removeOnPageChangeListener(PagerIndicatorView.this);
+            viewPager.removeOnAdapterChangeListener(this);
+            registerAdapter(null);
+        }
+
+        private void registerAdapter(PagerAdapter newAdapter) {
+            if (adapter == newAdapter) {
+                return;
+            }
+            if (adapter != null) {
+                adapter.unregisterDataSetObserver(observer);
+            }
+            adapter = newAdapter;
+            if (adapter != null) {
+                adapter.registerDataSetObserver(observer);
+            }
+        }
+
+        @Override
+        public void onAdapterChanged(@NonNull ViewPager viewPager, @Nullable PagerAdapter oldAdapter, @Nullable PagerAdapter newAdapter) {
+            registerAdapter(newAdapter);
+            setCount(itemCount());
+        }
+
+    }
+
+    /**
+     * RecyclerView.Adapter 数量变化监听，插入、删除按增量更新数量。
+     */
+    private abstract class RecyclerAdapterBinding extends Binding {
+
+        private RecyclerView.Adapter<?> adapter;
+
+        private final RecyclerView.AdapterDataObserver observer = new RecyclerView.AdapterDataObserver() {
+
+            @Override
+            public void onChanged() {
+                setCount(itemCount());
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                setCount(count + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                setCount(count - itemCount);
+            }
+
+        };
+
+        abstract RecyclerView.Adapter<?> adapter();
+
+        @Override
+        int itemCount() {
+            RecyclerView.Adapter<?> current = adapter();
+            return current != null ? current.getItemCount() : 0;
+        }
+
+        void registerAdapter() {
+            adapter = adapter();
+            if (adapter != null) {
+                adapter.registerAdapterDataObserver(observer);
+            }
+        }
+
+        void unregisterAdapter() {
+            if (adapter != null) {
+                adapter.unregisterAdapterDataObserver(observer);
+                adapter = null;
+            }
+        }
+
     }
 
+    private final class ViewPager2Binding extends RecyclerAdapterBinding {
+
+        private final ViewPager2 viewPager;
+
+        private final ViewPager2.OnPageChangeCallback callback = new ViewPager2.OnPageChangeCallback() {
+
+            @Override
+            public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+                PagerIndicatorView.this.onPageScrolled(position, positionOffset, positionOffsetPixels);
+            }
 
-    private float leftFunction(float percent) {
-        float factor = 0.3F;
-        if (percent < (1 - factor)) {
+        };
+
+        ViewPager2Binding(ViewPager2 viewPager) {
+            this.viewPager = viewPager;
+        }
+
+        @Override
+        RecyclerView.Adapter<?> adapter() {
+            return viewPager.getAdapter();
+        }
+
+        @Override
+        int currentItem() {
+            return viewPager.getCurrentItem();
+        }
+
+        @Override
+        void attach() {
+            viewPager.registerOnPageChangeCallback(callback);
+            registerAdapter();
+        }
+
+        @Override
+        void detach() {
+            viewPager.unregisterOnPageChangeCallback(callback);
+            unregisterAdapter();
+        }
+
+    }
+
+    private final class RecyclerViewBinding extends RecyclerAdapterBinding {
+
+        private final RecyclerView recyclerView;
+
+        private final RecyclerView.OnScrollListener listener = new RecyclerView.OnScrollListener() {
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager == null) {
+                    return;
+                }
+                int position = layoutManager.findFirstVisibleItemPosition();
+                View page = layoutManager.findViewByPosition(position);
+                if (page == null || page.getWidth() <= 0) {
+                    return;
+                }
+                int offsetPixels = recyclerView.getPaddingLeft() - layoutManager.getDecoratedLeft(page);
+                onPageScrolled(position, offsetPixels / (float) page.getWidth(), offsetPixels);
+            }
+
+        };
+
+        RecyclerViewBinding(RecyclerView recyclerView) {
+            this.recyclerView = recyclerView;
+        }
+
+        @Override
+        RecyclerView.Adapter<?> adapter() {
+            return recyclerView.getAdapter();
+        }
+
+        @Override
+        int currentItem() {
+            RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            if (layoutManager instanceof LinearLayoutManager) {
+                return Math.max(((LinearLayoutManager) layoutManager).findFirstVisibleItemPosition(), 0);
+            }
             return 0;
         }
-        return (percent - (1 - factor)) / factor;
+
+        @Override
+        void attach() {
+            recyclerView.addOnScrollListener(listener);
+            registerAdapter();
+        }
+
+        @Override
+        void detach() {
+            recyclerView.removeOnScrollListener(listener);
+            unregisterAdapter();
+        }
+
     }
 
+
     private int safePosition(int position) {
         if (position < 0) {
             return 0;
@@ -127,14 +552,33 @@ public class PagerIndicatorView extends View implements ViewPager.OnPageChangeLi
         return RADIUS + getPaddingTop();
     }
 
-    private float centerX(int position) {
-        int startX = getMeasuredWidth() / 2 - contentWidth() / 2;
-        return RADIUS + position * (2 * RADIUS + SPACE) + getPaddingLeft() + startX;
+    private void updateCenters() {
+        originX = IndicatorGeometry.originX(getWidth(), contentWidth(), RADIUS, getPaddingLeft());
+        // 窗口模式按需计算坐标，不保存全部圆点
+        if (!isWindowed()) {
+            if (centers.length != count) {
+                centers = new float[count];
+            }
+            IndicatorGeometry.centers(originX, count, RADIUS, SPACE, centers);
+        }
+        centersDirty = false;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        centersDirty = true;
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        centersDirty = true;
     }
 
 
     private int contentWidth() {
-        return count * 2 * RADIUS + (count - 1) * SPACE + getPaddingLeft() + getPaddingRight();
+        return IndicatorGeometry.contentWidth(visibleCount(), RADIUS, SPACE, getPaddingLeft(), getPaddingRight());
     }
 
     private int contentHeight() {
@@ -143,7 +587,12 @@ public class PagerIndicatorView extends View implements ViewPager.OnPageChangeLi
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_PAGER_INDICATOR_VIEW, WidgetMetrics.PHASE_MEASURE);
+        try {
+            setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_PAGER_INDICATOR_VIEW, WidgetMetrics.PHASE_MEASURE, start);
+        }
     }
 
     private int measureWidth(int measureSpec) {
@@ -180,9 +629,28 @@ public class PagerIndicatorView extends View implements ViewPager.OnPageChangeLi
 
     @Override
     public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+        // 与上一帧一致，无需重绘
+        if (position == index && positionOffset == percent) {
+            return;
+        }
         index = position;
         percent = positionOffset;
-        invalidate();
+
+        // 窗口模式下所有圆点都会移动，整体刷新
+        if (centersDirty || count <= 0 || drawnPill.isEmpty() || isWindowed()) {
+            invalidate();
+            return;
+        }
+
+        // 只刷新新旧选中块的并集（变化的圆点都在这个范围内）
+        computePill(dirtyPill);
+        dirtyPill.union(drawnPill);
+        invalidate(
+                (int) Math.floor(dirtyPill.left) - 1,
+                (int) Math.floor(dirtyPill.top) - 1,
+                (int) Math.ceil(dirtyPill.right) + 1,
+                (int) Math.ceil(dirtyPill.bottom) + 1
+        );
     }
 
     @Override
@@ -1,27 +1,59 @@
 package top.wuhaojie.awesome.widgets;
 
+import android.animation.ObjectAnimator;
+import android.animation.StateListAnimator;
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.RectF;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.RippleDrawable;
+import android.os.Build;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.MotionEvent;
+import android.view.View;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
 import androidx.appcompat.widget.AppCompatTextView;
+import androidx.core.view.ViewCompat;
+import androidx.swiperefreshlayout.widget.CircularProgressDrawable;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class RadiusButton extends AppCompatTextView {
 
-    private static final int STYLE_STROKE = 0x01;
+    // 描边、填充样式，与 nw_stroke_style 属性的取值一致，RadiusSegmentView 共用
+    static final int STYLE_STROKE = 0x01;
 
-    private static final int STYLE_FILL = 0x01 << 1;
+    static final int STYLE_FILL = 0x01 << 1;
 
     private static final int RADIUS_LEFT = 0x01;
 
     private static final int RADIUS_RIGHT = 0x01 << 1;
 
+    // 按下时的透明度
+    private static final float PRESSED_ALPHA = 0.6F;
+
+    // 按压反馈动画时长
+    private static final int PRESSED_DURATION = 100;
+
+    // 加载指示器尺寸，单位 dp
+    private static final int LOADING_SIZE = 20;
+
     private final RectF rect = new RectF();
 
     private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
@@ -41,6 +73,21 @@ public class RadiusButton extends AppCompatTextView {
 
     private int innerPadding = 0;
 
+    private boolean rippleEnabled = false;
+
+    // 低版本按压反馈的当前状态，仅在状态切换时触发动画
+    private boolean pressedFeedback = false;
+
+    private GradientDrawable rippleMask;
+
+    private boolean loading = false;
+
+    // 加载指示器，懒加载
+    private Drawable loadingDrawable;
+
+    // 构造阶段暂存 requestLayout、invalidate；父类构造时尚未初始化
+    private final WidgetBatch batch = new WidgetBatch(this);
+
 
     public RadiusButton(Context context) {
         super(context);
@@ -58,27 +105,169 @@ public class RadiusButton extends AppCompatTextView {
     }
 
     private void init(AttributeSet attrs) {
-        initAttrs(attrs);
-        initPaint(isEnabled());
-        initText();
+        // 构造阶段的属性设置合并为一次 requestLayout
+        batch.begin();
+        try {
+            initAttrs(attrs);
+            initPaint(isEnabled());
+            initText();
+
+            setFocusable(true);
+            setClickable(true);
+
+            innerPadding = dp2px(1);
+            setHeight(dp2px(50));
+
+            initPressedFeedback();
+        } finally {
+            batch.end();
+        }
+    }
 
-        setFocusable(true);
-        setClickable(true);
+    @Override
+    public void requestLayout() {
+        if (batch != null && batch.isBatching()) {
+            batch.requestLayout();
+            return;
+        }
+        super.requestLayout();
+    }
 
-        innerPadding = dp2px(1);
-        setHeight(dp2px(50));
+    @Override
+    public void invalidate() {
+        if (batch != null && batch.isBatching()) {
+            batch.invalidate();
+            return;
+        }
+        super.invalidate();
     }
 
     private void initAttrs(AttributeSet attrs) {
         if (attrs == null) {
             return;
         }
-        TypedArray attributes = getContext().obtainStyledAttributes(attrs, R.styleable.RadiusButton);
-        strokeStyle = attributes.getInteger(R.styleable.RadiusButton_nw_stroke_style, STYLE_FILL);
-        radiusStyle = attributes.getInteger(R.styleable.RadiusButton_nw_radius_style, RADIUS_LEFT | RADIUS_RIGHT);
-        themeColor = attributes.getColor(R.styleable.RadiusButton_nw_theme_color, getResources().getColor(R.color.colorAccent));
-        disableColor = attributes.getColor(R.styleable.RadiusButton_nw_disable_color, getResources().getColor(R.color.colorAccent));
-        attributes.recycle();
+        StyledAttrs styled = StyledAttrs.obtain(getContext(), attrs);
+        strokeStyle = styled.strokeStyle;
+        radiusStyle = styled.radiusStyle;
+        themeColor = styled.themeColor;
+        disableColor = styled.disableColor;
+        rippleEnabled = styled.rippleEnabled;
+    }
+
+    /**
+     * 解析后的样式属性。
+     * <p>
+     * xml 中只通过 style 设置本控件的属性时，解析结果只取决于 theme、configuration 和 style 资源，
+     * 按 theme 缓存（弱引用，比较同一对象），configuration 变化时整体失效，
+     * 列表中反复 inflate 同一布局时不再重复 obtainStyledAttributes 和颜色解析。
+     * 直接声明了本控件属性的不缓存。
+     */
+    private static final class StyledAttrs {
+
+        private static final Map<Resources.Theme, ThemeCache> CACHE = new WeakHashMap<>();
+
+        // 按资源 id 排序，用于二分查找
+        private static final int[] SORTED_ATTRS = sortedAttrs();
+
+        int strokeStyle;
+
+        int radiusStyle;
+
+        int themeColor;
+
+        int disableColor;
+
+        boolean rippleEnabled;
+
+        /**
+         * 同一个 theme 下按 style 资源缓存的结果。
+         */
+        private static final class ThemeCache {
+
+            final WeakReference<Resources.Theme> theme;
+
+            // 创建时 configuration 的副本
+            final Configuration configuration;
+
+            // key 为 style 资源 id，没有 style 时为 0
+            final SparseArray<StyledAttrs> styles = new SparseArray<>();
+
+            ThemeCache(Resources.Theme theme, Configuration configuration) {
+                this.theme = new WeakReference<>(theme);
+                this.configuration = new Configuration(configuration);
+            }
+
+            boolean matches(Resources.Theme theme, Configuration configuration) {
+                return this.theme.get() == theme && this.configuration.equals(configuration);
+            }
+
+        }
+
+        static StyledAttrs obtain(Context context, AttributeSet attrs) {
+            if (declaresOwnAttrs(attrs)) {
+                return resolve(context, attrs);
+            }
+            Resources.Theme theme = context.getTheme();
+            Configuration configuration = context.getResources().getConfiguration();
+            int style = attrs.getStyleAttribute();
+
+            synchronized (CACHE) {
+                ThemeCache themeCache = CACHE.get(theme);
+                if (themeCache != null && themeCache.matches(theme, configuration)) {
+                    StyledAttrs cached = themeCache.styles.get(style);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+            }
+
+            StyledAttrs styled = resolve(context, attrs);
+
+            synchronized (CACHE) {
+                ThemeCache themeCache = CACHE.get(theme);
+                if (themeCache == null || !themeCache.matches(theme, configuration)) {
+                    themeCache = new ThemeCache(theme, configuration);
+                    CACHE.put(theme, themeCache);
+                }
+                themeCache.styles.put(style, styled);
+            }
+            return styled;
+        }
+
+        private static StyledAttrs resolve(Context context, AttributeSet attrs) {
+            StyledAttrs styled = new StyledAttrs();
+            TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.RadiusButton);
+            // 两个颜色都已声明时不再解析默认颜色
+            boolean needDefault = !attributes.hasValue(R.styleable.RadiusButton_nw_theme_color)
+                    || !attributes.hasValue(R.styleable.RadiusButton_nw_disable_color);
+            int defaultColor = needDefault ? context.getResources().getColor(R.color.colorAccent) : Color.RED;
+            styled.strokeStyle = attributes.getInteger(R.styleable.RadiusButton_nw_stroke_style, STYLE_FILL);
+            styled.radiusStyle = attributes.getInteger(R.styleable.RadiusButton_nw_radius_style, RADIUS_LEFT | RADIUS_RIGHT);
+            styled.themeColor = attributes.getColor(R.styleable.RadiusButton_nw_theme_color, defaultColor);
+            styled.disableColor = attributes.getColor(R.styleable.RadiusButton_nw_disable_color, defaultColor);
+            styled.rippleEnabled = attributes.getBoolean(R.styleable.RadiusButton_nw_ripple, false);
+            attributes.recycle();
+            return styled;
+        }
+
+        /**
+         * xml 中是否直接声明了本控件的属性，声明时解析结果与具体的值有关，不能按 style 缓存。
+         */
+        private static boolean declaresOwnAttrs(AttributeSet attrs) {
+            for (int i = 0; i < attrs.getAttributeCount(); i++) {
+                if (Arrays.binarySearch(SORTED_ATTRS, attrs.getAttributeNameResource(i)) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int[] sortedAttrs() {
+            int[] attrs = R.styleable.RadiusButton.clone();
+            Arrays.sort(attrs);
+            return attrs;
+        }
+
     }
 
     private void initText() {
@@ -87,8 +276,13 @@ public class RadiusButton extends AppCompatTextView {
         } else {
             setTextColor(Color.WHITE);
         }
-        setTextSize(16);
-        setGravity(Gravity.CENTER);
+        float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16, getResources().getDisplayMetrics());
+        if (getTextSize() != textSize) {
+            setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+        }
+        if (getGravity() != Gravity.CENTER) {
+            setGravity(Gravity.CENTER);
+        }
     }
 
     private void initPaint(boolean enable) {
@@ -105,50 +299,70 @@ public class RadiusButton extends AppCompatTextView {
     }
 
 
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_RADIUS_BUTTON, WidgetMetrics.PHASE_MEASURE);
+        try {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_RADIUS_BUTTON, WidgetMetrics.PHASE_MEASURE, start);
+        }
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_RADIUS_BUTTON, WidgetMetrics.PHASE_DRAW);
+        try {
+            initPaint(isEnabled());
 
-        initPaint(isEnabled());
+            int radius = getMeasuredHeight() / 2;
 
-        int radius = getMeasuredHeight() / 2;
+            if ((radiusStyle & RADIUS_LEFT) != 0) {
+                drawLeftArc(canvas, radius);
+            }
 
-        if ((radiusStyle & RADIUS_LEFT) != 0) {
-            drawLeftArc(canvas, radius);
-        }
+            if ((radiusStyle & RADIUS_RIGHT) != 0) {
+                drawRightArc(canvas, radius);
+            }
 
-        if ((radiusStyle & RADIUS_RIGHT) != 0) {
-            drawRightArc(canvas, radius);
-        }
+            if ((strokeStyle & STYLE_STROKE) != 0) {
 
-        if ((strokeStyle & STYLE_STROKE) != 0) {
+                int startX = (radiusStyle & RADIUS_LEFT) != 0 ? radius : innerPadding;
+                int stopX = (radiusStyle & RADIUS_RIGHT) != 0 ? getMeasuredWidth() - radius : getMeasuredWidth() - innerPadding;
 
-            int startX = (radiusStyle & RADIUS_LEFT) != 0 ? radius : innerPadding;
-            int stopX = (radiusStyle & RADIUS_RIGHT) != 0 ? getMeasuredWidth() - radius : getMeasuredWidth() - innerPadding;
+                canvas.drawLine(startX, innerPadding, stopX, innerPadding, linePaint);
+                canvas.drawLine(startX, getMeasuredHeight() - innerPadding, stopX, getMeasuredHeight() - innerPadding, linePaint);
 
-            canvas.drawLine(startX, innerPadding, stopX, innerPadding, linePaint);
-            canvas.drawLine(startX, getMeasuredHeight() - innerPadding, stopX, getMeasuredHeight() - innerPadding, linePaint);
+                if ((radiusStyle & RADIUS_LEFT) == 0) {
+                    canvas.drawLine(innerPadding, innerPadding, innerPadding, getMeasuredHeight() - innerPadding, linePaint);
+                }
 
-            if ((radiusStyle & RADIUS_LEFT) == 0) {
-                canvas.drawLine(innerPadding, innerPadding, innerPadding, getMeasuredHeight() - innerPadding, linePaint);
-            }
+                if ((radiusStyle & RADIUS_RIGHT) == 0) {
+                    canvas.drawLine(getMeasuredWidth() - innerPadding, innerPadding, getMeasuredWidth() - innerPadding, getMeasuredHeight() - innerPadding, linePaint);
+                }
 
-            if ((radiusStyle & RADIUS_RIGHT) == 0) {
-                canvas.drawLine(getMeasuredWidth() - innerPadding, innerPadding, getMeasuredWidth() - innerPadding, getMeasuredHeight() - innerPadding, linePaint);
             }
 
-        }
+            if ((strokeStyle & STYLE_FILL) != 0) {
 
-        if ((strokeStyle & STYLE_FILL) != 0) {
+                rect.left = (radiusStyle & RADIUS_LEFT) != 0 ? radius : 0;
+                rect.top = 0;
+                rect.right = (radiusStyle & RADIUS_RIGHT) != 0 ? getMeasuredWidth() - radius : getMeasuredWidth();
+                rect.bottom = getMeasuredHeight();
 
-            rect.left = (radiusStyle & RADIUS_LEFT) != 0 ? radius : 0;
-            rect.top = 0;
-            rect.right = (radiusStyle & RADIUS_RIGHT) != 0 ? getMeasuredWidth() - radius : getMeasuredWidth();
-            rect.bottom = getMeasuredHeight();
+                canvas.drawRect(rect, fillPaint);
+            }
 
-            canvas.drawRect(rect, fillPaint);
-        }
+            // 加载中只绘制指示器，不绘制文字，也不改动文本，避免重新排版
+            if (loading && loadingDrawable != null) {
+                loadingDrawable.draw(canvas);
+                return;
+            }
 
-        super.onDraw(canvas);
+            super.onDraw(canvas);
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_RADIUS_BUTTON, WidgetMetrics.PHASE_DRAW, start);
+        }
     }
 
 
@@ -186,21 +400,212 @@ public class RadiusButton extends AppCompatTextView {
         }
     }
 
-    @Override
-    public boolean dispatchTouchEvent(MotionEvent event) {
-        if (isEnabled() && (MotionEvent.ACTION_DOWN == event.getAction() || MotionEvent.ACTION_MOVE == event.getAction())) {
-            setAlpha(0.6F);
-        } else {
+    /**
+     * 按压反馈。
+     * <p>
+     * 5.0 及以上使用 StateListAnimator，低版本在 drawableStateChanged 中处理，
+     * 两者都只在按压状态切换时执行一次动画，手指移动不会引起重绘。
+     */
+    private void initPressedFeedback() {
+        if (rippleEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            initRipple();
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            StateListAnimator animator = new StateListAnimator();
+            animator.addState(
+                    new int[]{android.R.attr.state_pressed, android.R.attr.state_enabled},
+                    ObjectAnimator.ofFloat(this, View.ALPHA, PRESSED_ALPHA).setDuration(PRESSED_DURATION)
+            );
+            animator.addState(
+                    new int[0],
+                    ObjectAnimator.ofFloat(this, View.ALPHA, 1F).setDuration(PRESSED_DURATION)
+            );
+            setStateListAnimator(animator);
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.M)
+    private void initRipple() {
+        rippleMask = new GradientDrawable();
+        rippleMask.setColor(Color.WHITE);
+        updateRippleMask(getMeasuredHeight());
+
+        int rippleColor = (strokeStyle & STYLE_FILL) != 0 ? 0x33FFFFFF : (themeColor & 0x00FFFFFF) | 0x33000000;
+        setForeground(new RippleDrawable(ColorStateList.valueOf(rippleColor), null, rippleMask));
+    }
+
+    private void updateRippleMask(int height) {
+        if (rippleMask == null) {
+            return;
+        }
+        float left = (radiusStyle & RADIUS_LEFT) != 0 ? height / 2F : 0;
+        float right = (radiusStyle & RADIUS_RIGHT) != 0 ? height / 2F : 0;
+        rippleMask.setCornerRadii(new float[]{left, left, right, right, right, right, left, left});
+    }
+
+    /**
+     * 设置是否使用水波纹作为按压反馈，仅 6.0 及以上生效，低版本仍使用透明度反馈。
+     */
+    public void setRippleEnabled(boolean enabled) {
+        if (rippleEnabled == enabled) {
+            return;
+        }
+        rippleEnabled = enabled;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return;
+        }
+        if (enabled) {
+            setStateListAnimator(null);
             setAlpha(1F);
+            initRipple();
+        } else {
+            setForeground(null);
+            rippleMask = null;
+            initPressedFeedback();
         }
-        return super.dispatchTouchEvent(event);
+    }
+
+    public boolean isRippleEnabled() {
+        return rippleEnabled;
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        boolean pressed = isPressed() && isEnabled();
+        if (pressed == pressedFeedback) {
+            return;
+        }
+        pressedFeedback = pressed;
+        animate().alpha(pressed ? PRESSED_ALPHA : 1F).setDuration(PRESSED_DURATION).start();
+    }
+
+    /**
+     * 设置加载状态。
+     * <p>
+     * 加载中在按钮中央绘制指示器并隐藏文字，宽高保持不变，不会触发 requestLayout；
+     * 7.1 及以上指示器动画在 RenderThread 上执行，不会逐帧重绘按钮。
+     */
+    public void setLoading(boolean loading) {
+        if (this.loading == loading) {
+            return;
+        }
+        this.loading = loading;
+        if (loading) {
+            if (loadingDrawable == null) {
+                loadingDrawable = createLoadingDrawable();
+                loadingDrawable.setCallback(this);
+                updateLoadingBounds(getWidth(), getHeight());
+            }
+            if (ViewCompat.isAttachedToWindow(this)) {
+                ((Animatable) loadingDrawable).start();
+            }
+        } else if (loadingDrawable != null) {
+            ((Animatable) loadingDrawable).stop();
+        }
+        batch.invalidate();
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    @NonNull
+    private Drawable createLoadingDrawable() {
+        int color = getCurrentTextColor();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            Drawable drawable = getContext().getDrawable(R.drawable.nw_radius_button_loading).mutate();
+            drawable.setTint(color);
+            return drawable;
+        }
+        CircularProgressDrawable drawable = new CircularProgressDrawable(getContext());
+        drawable.setColorSchemeColors(color);
+        drawable.setStrokeWidth(dp2px(2));
+        drawable.setCenterRadius(dp2px(LOADING_SIZE) / 2F - dp2px(2));
+        return drawable;
+    }
+
+    private void updateLoadingBounds(int w, int h) {
+        if (loadingDrawable == null) {
+            return;
+        }
+        // 高度小于内边距时不绘制，避免出现负的边界
+        int size = Math.max(0, Math.min(dp2px(LOADING_SIZE), h - 4 * innerPadding));
+        int left = (w - size) / 2;
+        int top = (h - size) / 2;
+        loadingDrawable.setBounds(left, top, left + size, top + size);
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == loadingDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        // 加载中不响应点击
+        if (loading) {
+            return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * 键盘、无障碍服务的点击同样经过这里，加载中不触发点击回调。
+     */
+    @Override
+    public boolean performClick() {
+        if (loading) {
+            return false;
+        }
+        return super.performClick();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (loading && loadingDrawable != null) {
+            ((Animatable) loadingDrawable).start();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (loadingDrawable != null) {
+            ((Animatable) loadingDrawable).stop();
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateRippleMask(h);
+        updateLoadingBounds(w, h);
+    }
+
+    /**
+     * 描边样式下文字与描边不重叠，半透明时无需离屏缓冲；填充样式下文字叠在背景之上，需要离屏缓冲保证效果。
+     */
+    @Override
+    public boolean hasOverlappingRendering() {
+        return (strokeStyle & STYLE_FILL) != 0;
     }
 
 
     @Override
     public void setEnabled(boolean enabled) {
         super.setEnabled(enabled);
-        invalidate();
+        // 父类构造时（xml 中声明 android:enabled）batch 尚未初始化
+        if (batch == null) {
+            super.invalidate();
+            return;
+        }
+        batch.invalidate();
     }
 
     public int dp2px(float dp) {
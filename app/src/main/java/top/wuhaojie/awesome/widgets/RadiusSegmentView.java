@@ -0,0 +1,468 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分段按钮。
+ * <p>
+ * 与 RadiusButton 相同的圆角样式，所有分段、分割线、文字都在一个 View 中绘制，
+ * 分段等宽，按 x 坐标可直接换算出点击的分段。
+ */
+public class RadiusSegmentView extends View {
+
+    private static final int STYLE_STROKE = RadiusButton.STYLE_STROKE;
+
+    private static final int STYLE_FILL = RadiusButton.STYLE_FILL;
+
+    // 按下的分段文字透明度
+    private static final float PRESSED_ALPHA = 0.6F;
+
+    private final List<String> segments = new ArrayList<>();
+
+    // 各分段文字宽度，仅在分段变化时计算
+    private float[] textWidths = new float[0];
+
+    // 各分段实际绘制的文字，超出分段宽度时省略末尾，仅在分段或尺寸变化时计算
+    private CharSequence[] labels = new CharSequence[0];
+
+    private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    // 外框路径
+    private final Path outlinePath = new Path();
+
+    // 选中分段路径
+    private final Path selectedPath = new Path();
+
+    private final RectF rect = new RectF();
+
+    private final float[] radii = new float[8];
+
+    private int strokeStyle = STYLE_STROKE;
+
+    private int themeColor = Color.RED;
+
+    private int disableColor = Color.RED;
+
+    private int selectedIndex = 0;
+
+    // 按下的分段，没有时为 -1
+    private int pressedIndex = -1;
+
+    private float segmentWidth = 0;
+
+    // 文字基线相对于垂直中心的偏移
+    private float baselineOffset = 0;
+
+    private int innerPadding = 0;
+
+    private OnSegmentSelectedListener onSegmentSelectedListener;
+
+    public interface OnSegmentSelectedListener {
+
+        void onSegmentSelected(RadiusSegmentView view, int index);
+
+    }
+
+    public RadiusSegmentView(Context context) {
+        super(context);
+        init(null);
+    }
+
+    public RadiusSegmentView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(attrs);
+    }
+
+    public RadiusSegmentView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(attrs);
+    }
+
+    private void init(AttributeSet attrs) {
+        initAttrs(attrs);
+
+        innerPadding = dp2px(1);
+
+        strokePaint.setStyle(Paint.Style.STROKE);
+        strokePaint.setStrokeWidth(innerPadding);
+
+        fillPaint.setStyle(Paint.Style.FILL);
+
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16, getResources().getDisplayMetrics()));
+
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        baselineOffset = -(metrics.ascent + metrics.descent) / 2F;
+
+        setFocusable(true);
+        setClickable(true);
+    }
+
+    private void initAttrs(AttributeSet attrs) {
+        if (attrs == null) {
+            return;
+        }
+        TypedArray attributes = getContext().obtainStyledAttributes(attrs, R.styleable.RadiusSegmentView);
+        strokeStyle = attributes.getInteger(R.styleable.RadiusSegmentView_nw_stroke_style, STYLE_STROKE);
+        themeColor = attributes.getColor(R.styleable.RadiusSegmentView_nw_theme_color, getResources().getColor(R.color.colorAccent));
+        disableColor = attributes.getColor(R.styleable.RadiusSegmentView_nw_disable_color, getResources().getColor(R.color.colorAccent));
+        attributes.recycle();
+    }
+
+    public void setSegments(@NonNull List<String> list) {
+        segments.clear();
+        segments.addAll(list);
+        textWidths = new float[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            String text = segments.get(i);
+            textWidths[i] = textPaint.measureText(text, 0, text.length());
+        }
+        labels = new CharSequence[segments.size()];
+        if (selectedIndex >= segments.size()) {
+            selectedIndex = 0;
+        }
+        pressedIndex = -1;
+        // 尺寸不变时不会回调 onSizeChanged，这里直接更新分段位置
+        updateOutlinePath();
+        updateSelectedPath();
+        requestLayout();
+        invalidate();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public int getSelectedIndex() {
+        return selectedIndex;
+    }
+
+    public void setSelectedIndex(int index) {
+        setSelectedIndex(index, false);
+    }
+
+    private void setSelectedIndex(int index, boolean fromUser) {
+        if (index < 0 || index >= segments.size() || index == selectedIndex) {
+            return;
+        }
+        selectedIndex = index;
+        updateSelectedPath();
+        invalidate();
+        if (fromUser) {
+            sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+            if (onSegmentSelectedListener != null) {
+                onSegmentSelectedListener.onSegmentSelected(this, index);
+            }
+        }
+    }
+
+    public void setOnSegmentSelectedListener(OnSegmentSelectedListener listener) {
+        this.onSegmentSelectedListener = listener;
+    }
+
+    /**
+     * 根据 x 坐标计算所在分段，分段等宽，直接换算即可。
+     *
+     * @return 分段下标，不在任何分段内时返回 -1
+     */
+    public int segmentAt(float x) {
+        if (segments.isEmpty() || segmentWidth <= 0) {
+            return -1;
+        }
+        float offset = x - getPaddingLeft();
+        if (offset < 0) {
+            return -1;
+        }
+        int index = (int) (offset / segmentWidth);
+        return index < segments.size() ? index : -1;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        super.setEnabled(enabled);
+        invalidate();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled()) {
+            return super.onTouchEvent(event);
+        }
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                setPressed(true);
+                setPressedIndex(segmentAt(event.getX(), event.getY()));
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                // 移出按下的分段后取消
+                if (pressedIndex >= 0 && segmentAt(event.getX(), event.getY()) != pressedIndex) {
+                    setPressedIndex(-1);
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                int index = segmentAt(event.getX(), event.getY());
+                boolean clicked = index >= 0 && index == pressedIndex;
+                setPressed(false);
+                setPressedIndex(-1);
+                if (clicked) {
+                    setSelectedIndex(index, true);
+                    performClick();
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                setPressed(false);
+                setPressedIndex(-1);
+                return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * 同时判断 y 坐标，落在 View 上下 padding 之外时不算任何分段。
+     */
+    private int segmentAt(float x, float y) {
+        if (y < getPaddingTop() || y >= getHeight() - getPaddingBottom()) {
+            return -1;
+        }
+        return segmentAt(x);
+    }
+
+    private void setPressedIndex(int index) {
+        if (pressedIndex == index) {
+            return;
+        }
+        pressedIndex = index;
+        invalidate();
+    }
+
+    @Override
+    public void onInitializeAccessibilityEvent(AccessibilityEvent event) {
+        super.onInitializeAccessibilityEvent(event);
+        event.setClassName(RadiusSegmentView.class.getName());
+        event.setItemCount(segments.size());
+        event.setCurrentItemIndex(selectedIndex);
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        // 朗读选中的分段
+        if (selectedIndex < segments.size()) {
+            event.getText().add(segments.get(selectedIndex));
+        }
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        info.setClassName(RadiusSegmentView.class.getName());
+        if (selectedIndex < segments.size()) {
+            info.setText(segments.get(selectedIndex));
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateOutlinePath();
+        updateSelectedPath();
+    }
+
+    private void updateOutlinePath() {
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float right = getWidth() - getPaddingRight();
+        float bottom = getHeight() - getPaddingBottom();
+
+        segmentWidth = segments.isEmpty() ? 0 : (right - left) / segments.size();
+
+        // 描边在路径两侧各占一半，向内收缩避免被裁剪
+        float half = innerPadding / 2F;
+        float radius = (bottom - top) / 2F - half;
+        rect.set(left + half, top + half, right - half, bottom - half);
+
+        outlinePath.reset();
+        outlinePath.addRoundRect(rect, radius, radius, Path.Direction.CW);
+
+        updateLabels(bottom - top);
+    }
+
+    /**
+     * 文字超出分段宽度时省略末尾，两端留出半圆的空间，与 contentWidth 一致。
+     */
+    private void updateLabels(float height) {
+        float available = Math.max(0, segmentWidth - height);
+        for (int i = 0; i < segments.size(); i++) {
+            String text = segments.get(i);
+            labels[i] = textWidths[i] <= available
+                    ? text
+                    : TextUtils.ellipsize(text, textPaint, available, TextUtils.TruncateAt.END);
+        }
+    }
+
+    private void updateSelectedPath() {
+        selectedPath.reset();
+        if (segments.isEmpty() || segmentWidth <= 0) {
+            return;
+        }
+        float top = getPaddingTop();
+        float bottom = getHeight() - getPaddingBottom();
+        float radius = (bottom - top) / 2F;
+        float left = getPaddingLeft() + selectedIndex * segmentWidth;
+
+        float leftRadius = selectedIndex == 0 ? radius : 0;
+        float rightRadius = selectedIndex == segments.size() - 1 ? radius : 0;
+
+        radii[0] = radii[1] = radii[6] = radii[7] = leftRadius;
+        radii[2] = radii[3] = radii[4] = radii[5] = rightRadius;
+
+        rect.set(left, top, left + segmentWidth, bottom);
+        selectedPath.addRoundRect(rect, radii, Path.Direction.CW);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_RADIUS_SEGMENT_VIEW, WidgetMetrics.PHASE_DRAW);
+        try {
+            super.onDraw(canvas);
+
+            int count = segments.size();
+            if (count == 0) {
+                return;
+            }
+
+            int color = isEnabled() ? themeColor : disableColor;
+            boolean fill = (strokeStyle & STYLE_FILL) != 0;
+
+            // 填充样式下整体铺底色，选中分段使用白色；描边样式下仅选中分段填充
+            if (fill) {
+                fillPaint.setColor(color);
+                canvas.drawPath(outlinePath, fillPaint);
+                fillPaint.setColor(Color.WHITE);
+            } else {
+                fillPaint.setColor(color);
+            }
+            canvas.drawPath(selectedPath, fillPaint);
+
+            strokePaint.setColor(color);
+            canvas.drawPath(outlinePath, strokePaint);
+
+            // 分割线
+            float top = getPaddingTop();
+            float bottom = getHeight() - getPaddingBottom();
+            for (int i = 1; i < count; i++) {
+                float x = getPaddingLeft() + i * segmentWidth;
+                canvas.drawLine(x, top, x, bottom, strokePaint);
+            }
+
+            // 文字
+            float baselineY = (top + bottom) / 2F + baselineOffset;
+            int selectedTextColor = fill ? color : Color.WHITE;
+            int normalTextColor = fill ? Color.WHITE : color;
+            for (int i = 0; i < count; i++) {
+                textPaint.setColor(i == selectedIndex ? selectedTextColor : normalTextColor);
+                if (i == pressedIndex) {
+                    textPaint.setAlpha((int) (textPaint.getAlpha() * PRESSED_ALPHA));
+                }
+                float centerX = getPaddingLeft() + (i + 0.5F) * segmentWidth;
+                CharSequence label = labels[i];
+                canvas.drawText(label, 0, label.length(), centerX, baselineY, textPaint);
+            }
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_RADIUS_SEGMENT_VIEW, WidgetMetrics.PHASE_DRAW, start);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_RADIUS_SEGMENT_VIEW, WidgetMetrics.PHASE_MEASURE);
+        try {
+            setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_RADIUS_SEGMENT_VIEW, WidgetMetrics.PHASE_MEASURE, start);
+        }
+    }
+
+    private int measureWidth(int measureSpec) {
+        int result;
+        int specMode = MeasureSpec.getMode(measureSpec);
+        int specSize = MeasureSpec.getSize(measureSpec);
+        if (specMode == MeasureSpec.EXACTLY) {
+            result = specSize;
+        } else {
+            result = contentWidth() + getPaddingLeft() + getPaddingRight();
+            if (specMode == MeasureSpec.AT_MOST) {
+                result = Math.min(result, specSize);
+            }
+        }
+
+        return result;
+    }
+
+    private int measureHeight(int measureSpec) {
+        int result;
+        int specMode = MeasureSpec.getMode(measureSpec);
+        int specSize = MeasureSpec.getSize(measureSpec);
+        if (specMode == MeasureSpec.EXACTLY) {
+            result = specSize;
+        } else {
+            result = contentHeight() + getPaddingTop() + getPaddingBottom();
+            if (specMode == MeasureSpec.AT_MOST) {
+                result = Math.min(result, specSize);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 分段等宽，以最宽的文字为准。
+     */
+    private int contentWidth() {
+        float max = 0;
+        for (float width : textWidths) {
+            max = Math.max(max, width);
+        }
+        int height = contentHeight();
+        // 两端留出半圆的空间
+        return (int) ((max + height) * segments.size());
+    }
+
+    private int contentHeight() {
+        return dp2px(50);
+    }
+
+    private int dp2px(float dp) {
+        float scale = getResources().getDisplayMetrics().density;
+        return (int) (dp * scale + 0.5F);
+    }
+
+}
@@ -0,0 +1,330 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import top.wuhaojie.awesome.widgets.geometry.TagGeometry;
+
+/**
+ * TagView 的排版结果：各标签文字尺寸、折行位置和整体尺寸，创建后不可修改。
+ * <p>
+ * 可以在后台线程提前计算，例如在 RecyclerView 加载数据或 DiffUtil 比较时，
+ * 绑定时通过 {@link TagView#setLayout(TagLayout)} 直接使用，主线程不再测量文字。
+ * 文字大小、可用宽度等与 TagView 不一致时，TagView 会重新同步排版。
+ * <pre>
+ * TagLayout.Builder builder = tagView.newLayoutBuilder().maxWidth(itemWidth);
+ * executor.execute(new Runnable() {
+ *     public void run() {
+ *         item.tagLayout = builder.build(item.tags);
+ *     }
+ * });
+ * </pre>
+ */
+public final class TagLayout {
+
+    private final List<String> tags;
+
+    final int textSize;
+
+    final int paddingHorizontal;
+
+    final int paddingVertical;
+
+    private final int space;
+
+    private final int lineSpace;
+
+    private final int maxWidth;
+
+    private final boolean batchMeasure;
+
+    final int[] textWidths;
+
+    final int[] textHeights;
+
+    // 相对内容区域的左侧位置
+    final float[] lefts;
+
+    // 所在行，从 0 开始
+    final int[] lines;
+
+    private final int lineCount;
+
+    // 行高，取最高的标签
+    final int lineHeight;
+
+    private final int width;
+
+    private final int height;
+
+    private TagLayout(Builder builder, List<String> tags, int[] textWidths, int[] textHeights) {
+        this.tags = tags;
+        this.textSize = builder.textSize;
+        this.paddingHorizontal = builder.paddingHorizontal;
+        this.paddingVertical = builder.paddingVertical;
+        this.space = builder.space;
+        this.lineSpace = builder.lineSpace;
+        this.maxWidth = builder.maxWidth;
+        this.batchMeasure = builder.batchMeasure;
+        this.textWidths = textWidths;
+        this.textHeights = textHeights;
+
+        int count = tags.size();
+        lefts = new float[count];
+        lines = new int[count];
+        lineCount = TagGeometry.breakLines(textWidths, count, paddingHorizontal, space, maxWidth, lefts, lines);
+
+        int maxTagHeight = 0;
+        int maxRight = 0;
+        for (int i = 0; i < count; i++) {
+            maxTagHeight = Math.max(maxTagHeight, TagGeometry.tagHeight(textHeights[i], paddingVertical));
+            maxRight = Math.max(maxRight, (int) lefts[i] + TagGeometry.tagWidth(textWidths[i], paddingHorizontal));
+        }
+        lineHeight = maxTagHeight;
+        width = maxRight;
+        height = TagGeometry.linesHeight(lineCount, lineHeight, lineSpace);
+    }
+
+    @NonNull
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public int getTagCount() {
+        return tags.size();
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * 内容宽度，不含 View 的 padding。
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 内容高度，不含 View 的 padding。
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    /**
+     * 标签相对内容区域的顶部位置。
+     */
+    float top(int index) {
+        return lines[index] * (lineHeight + lineSpace);
+    }
+
+    /**
+     * 样式与可用宽度是否一致，一致时可以直接使用。
+     * <p>
+     * 可用宽度不同但只有一行、且放得下时，折行结果相同，同样可以使用。
+     *
+     * @param maxWidth 可用宽度，不大于 0 时不折行
+     */
+    boolean matches(int textSize, int paddingHorizontal, int paddingVertical, int space, int lineSpace,
+                    boolean batchMeasure, int maxWidth) {
+        if (this.textSize != textSize
+                || this.batchMeasure != batchMeasure
+                || this.paddingHorizontal != paddingHorizontal
+                || this.paddingVertical != paddingVertical
+                || this.space != space
+                || this.lineSpace != lineSpace) {
+            return false;
+        }
+        if (this.maxWidth == maxWidth) {
+            return true;
+        }
+        return lineCount <= 1 && (maxWidth <= 0 || width <= maxWidth);
+    }
+
+    /**
+     * 计算 TagLayout，默认样式与 TagView 一致，可以通过 {@link TagView#newLayoutBuilder()} 获取与指定 TagView 一致的 Builder。
+     * <p>
+     * build 可以在任意线程调用，但同一个 Builder 不要同时在多个线程使用。
+     */
+    public static final class Builder {
+
+        // 批量测量时一次最多处理的字符数，单个标签超过时单独处理
+        private static final int BATCH_CHARS = 8192;
+
+        // 批量测量时标签之间的分隔符，换行处是段落边界，前后文字不会一起排版
+        private static final char SEPARATOR = '\n';
+
+        private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+        private final Rect bounds = new Rect();
+
+        private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+
+        // 批量测量的拼接文字和各字符宽度，按需扩容复用
+        private char[] chars = new char[0];
+
+        private float[] advances = new float[0];
+
+        private int textSize = 60;
+
+        private int paddingHorizontal = 25;
+
+        private int paddingVertical = 15;
+
+        private int space = 40;
+
+        private int lineSpace = 20;
+
+        private int maxWidth = 0;
+
+        private boolean batchMeasure = false;
+
+        public Builder() {
+            paint.setTextSize(textSize);
+        }
+
+        /**
+         * @param textSize 单位 px
+         */
+        public Builder textSize(int textSize) {
+            this.textSize = textSize;
+            paint.setTextSize(textSize);
+            return this;
+        }
+
+        /**
+         * 标签的水平、垂直边距，单位 px
+         */
+        public Builder tagPadding(int horizontal, int vertical) {
+            this.paddingHorizontal = horizontal;
+            this.paddingVertical = vertical;
+            return this;
+        }
+
+        /**
+         * 标签间距，单位 px
+         */
+        public Builder tagSpace(int space) {
+            this.space = space;
+            return this;
+        }
+
+        /**
+         * 行间距，单位 px
+         */
+        public Builder lineSpace(int lineSpace) {
+            this.lineSpace = lineSpace;
+            return this;
+        }
+
+        /**
+         * 可用宽度，即 TagView 的宽度减去左右 padding，单位 px。不大于 0 时不折行，默认不折行。
+         */
+        public Builder maxWidth(int maxWidth) {
+            this.maxWidth = maxWidth;
+            return this;
+        }
+
+        /**
+         * 是否批量测量文字，默认关闭。
+         * <p>
+         * 默认逐个标签测量文字的实际边界（getTextBounds），每个标签一次 native 调用。
+         * 开启后文字宽度改为字符宽度之和、高度统一取字体的 ascent 到 descent，
+         * 将多个标签拼接后一次 getTextWidths 得到所有字符宽度再按标签拆分，标签数量多时明显减少 native 调用。
+         * 结果与逐个标签调用 getTextWidths 一致，但与默认方式的尺寸不同，标签会略宽、高度统一。
+         */
+        public Builder batchMeasure(boolean batchMeasure) {
+            this.batchMeasure = batchMeasure;
+            return this;
+        }
+
+        @NonNull
+        public TagLayout build(@NonNull List<String> tags) {
+            List<String> copy = Collections.unmodifiableList(new ArrayList<>(tags));
+            int count = copy.size();
+            int[] textWidths = new int[count];
+            int[] textHeights = new int[count];
+            if (batchMeasure) {
+                measureBatched(copy, textWidths, textHeights);
+            } else {
+                measureEach(copy, textWidths, textHeights);
+            }
+            return new TagLayout(this, copy, textWidths, textHeights);
+        }
+
+        private void measureEach(List<String> tags, int[] textWidths, int[] textHeights) {
+            for (int i = 0; i < tags.size(); i++) {
+                String text = tags.get(i);
+                paint.getTextBounds(text, 0, text.length(), bounds);
+                textWidths[i] = bounds.right - bounds.left;
+                textHeights[i] = bounds.bottom - bounds.top;
+            }
+        }
+
+        /**
+         * 以分隔符拼接一批标签，一次取得所有字符宽度，再按标签求和。
+         */
+        private void measureBatched(List<String> tags, int[] textWidths, int[] textHeights) {
+            paint.getFontMetrics(fontMetrics);
+            int textHeight = (int) Math.ceil(fontMetrics.descent - fontMetrics.ascent);
+
+            int count = tags.size();
+            int first = 0;
+            while (first < count) {
+                int end = first;
+                int length = 0;
+                while (end < count && (end == first || length + tags.get(end).length() + 1 <= BATCH_CHARS)) {
+                    length += tags.get(end).length() + 1;
+                    end++;
+                }
+
+                if (chars.length < length) {
+                    chars = new char[Math.max(length, BATCH_CHARS)];
+                    advances = new float[chars.length];
+                }
+                int offset = 0;
+                for (int i = first; i < end; i++) {
+                    String text = tags.get(i);
+                    text.getChars(0, text.length(), chars, offset);
+                    offset += text.length();
+                    chars[offset++] = SEPARATOR;
+                }
+
+                paint.getTextWidths(chars, 0, length, advances);
+
+                offset = 0;
+                for (int i = first; i < end; i++) {
+                    int textLength = tags.get(i).length();
+                    textWidths[i] = advanceWidth(advances, offset, textLength);
+                    textHeights[i] = textHeight;
+                    offset += textLength + 1;
+                }
+                first = end;
+            }
+        }
+
+        /**
+         * 字符宽度之和，按顺序累加，与单独测量一个标签时的结果一致。
+         */
+        private static int advanceWidth(float[] advances, int offset, int count) {
+            float width = 0;
+            for (int i = offset; i < offset + count; i++) {
+                width += advances[i];
+            }
+            return (int) Math.ceil(width);
+        }
+
+    }
+
+}
@@ -1,30 +1,87 @@
 package top.wuhaojie.awesome.widgets;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Rect;
 import android.graphics.RectF;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.animation.DecelerateInterpolator;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
+import top.wuhaojie.awesome.widgets.geometry.TagGeometry;
+
 public class TagView extends View {
 
     private static final String TAG = TagView.class.getSimpleName();
 
+    // 样式序号以无符号 byte 存储
+    private static final int MAX_STYLES = 256;
+
+    // 点击不改变选中状态
+    public static final int SELECT_NONE = 0;
+
+    // 单选
+    public static final int SELECT_SINGLE = 1;
+
+    // 多选
+    public static final int SELECT_MULTIPLE = 2;
+
+    private static final long CHANGE_DURATION = 250;
+
+    // 按下时标签的透明度
+    private static final float PRESSED_ALPHA = 0.6F;
+
     private final List<String> tags = new ArrayList<>();
 
+    // 各标签的样式序号，与 tags 一一对应，按需扩容
+    private byte[] tagStyles = new byte[0];
+
+    // 调色板，0 为默认样式
+    private final ArrayList<TagStyle> palette = new ArrayList<>();
+
+    // 按样式分组的绘制顺序（计数排序），styleOrder[styleStarts[s] ~ styleStarts[s + 1]) 为样式 s 的标签，
+    // 标签或样式变化后在下次绘制时重新计算
+    private int[] styleOrder = new int[0];
+
+    private int[] styleStarts = new int[0];
+
+    private int[] styleCursors = new int[0];
+
+    private boolean styleOrderDirty = true;
+
     private Paint paintBackground;
 
     private Paint paintText;
 
+    private int selectionMode = SELECT_NONE;
+
+    // 选中的标签
+    private final BitSet selection = new BitSet();
+
+    // 修改前的选中状态，用于计算变化的标签，复用
+    private final BitSet selectionChanges = new BitSet();
+
+    // 选中的标签使用同一样式
+    private TagStyle selectedStyle;
+
+    // 按下的标签，没有时为 -1
+    private int pressedIndex = -1;
+
+    private OnTagSelectionChangedListener onTagSelectionChangedListener;
+
     private int textSize = 60;
 
     // 标签水平边距
@@ -36,13 +93,51 @@ public class TagView extends View {
     // 标签间距
     private int tagSpace = 40;
 
+    // 行间距
+    private int tagLineSpace = 20;
+
     // 弧度
     private int tagRadius = 12;
 
 
     private RectF rectBackground = new RectF();
 
-    private Rect rectText = new Rect();
+    // 当前排版，标签变化后置空，下次测量时重新计算
+    private TagLayout layout;
+
+    // 主线程同步排版使用
+    private TagLayout.Builder layoutBuilder;
+
+    // 是否批量测量文字，参见 TagLayout.Builder#batchMeasure
+    private boolean batchMeasure = false;
+
+    // 绘制时复用
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+
+    private final WidgetBatch batch = new WidgetBatch(this);
+
+    // 插入、删除标签时是否播放动画
+    private boolean animateChanges = false;
+
+    private final ChangeTransition transition = new ChangeTransition();
+
+    // 整个 View 共用一个动画，首次使用时创建
+    private ValueAnimator changeAnimator;
+
+    // 重新开始动画时忽略 cancel 触发的结束回调
+    private boolean restartingChangeAnimator = false;
+
+    public interface OnTagSelectionChangedListener {
+
+        void onTagSelectionChanged(TagView view);
+
+    }
+
+    public interface TagFilter {
+
+        boolean accept(int index, String tag);
+
+    }
 
 
     public TagView(Context context) {
@@ -61,78 +156,769 @@ public class TagView extends View {
     }
 
     public void refresh(@NonNull List<String> list) {
+        refresh(list, null);
+    }
+
+    /**
+     * @param styles 各标签的样式序号，参见 {@link #addStyle(int, int)}，为 null 时都使用默认样式
+     */
+    public void refresh(@NonNull List<String> list, @Nullable byte[] styles) {
+        checkStyles(styles, list.size());
+        cancelChangeAnimation();
         tags.clear();
         tags.addAll(list);
-        requestLayout();
-        invalidate();
+        setStyles(styles);
+        clearSelectionSilently();
+        pressedIndex = -1;
+        layout = null;
+        batch.requestLayout();
+        batch.invalidate();
     }
 
     public void addTag(String tag) {
-        tags.add(tag);
-        requestLayout();
-        invalidate();
+        addTag(tag, 0);
+    }
+
+    /**
+     * @param style 样式序号，参见 {@link #addStyle(int, int)}
+     */
+    public void addTag(String tag, int style) {
+        insertTag(tags.size(), tag, style);
+    }
+
+    public void insertTag(int index, String tag) {
+        insertTag(index, tag, 0);
+    }
+
+    /**
+     * 在 index 处插入标签，开启动画时新标签淡入，其后的标签移动到新位置。
+     *
+     * @param style 样式序号，参见 {@link #addStyle(int, int)}
+     */
+    public void insertTag(int index, String tag, int style) {
+        if (index < 0 || index > tags.size()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + tags.size());
+        }
+        checkStyle(style);
+        boolean animate = prepareChangeAnimation();
+        if (animate) {
+            transition.onInsert(index, tags.size());
+        }
+
+        int count = tags.size();
+        ensureStyleCapacity(count + 1);
+        System.arraycopy(tagStyles, index, tagStyles, index + 1, count - index);
+        tagStyles[index] = (byte) style;
+        palette.get(style).count++;
+        styleOrderDirty = true;
+        shiftSelection(index, count, 1);
+        pressedIndex = -1;
+        tags.add(index, tag);
+
+        layout = null;
+        batch.requestLayout();
+        batch.invalidate();
+        if (animate) {
+            startChangeAnimation();
+        }
+    }
+
+    /**
+     * 删除 index 处的标签，开启动画时被删除的标签在原位置淡出，其后的标签移动到新位置。
+     */
+    public void removeTag(int index) {
+        checkIndex(index);
+        boolean animate = prepareChangeAnimation();
+        if (animate) {
+            transition.onRemove(index, tags.size(), layout, tags.get(index), tagStyles[index]);
+        }
+
+        int count = tags.size();
+        palette.get(tagStyles[index] & 0xFF).count--;
+        styleOrderDirty = true;
+        System.arraycopy(tagStyles, index + 1, tagStyles, index, count - index - 1);
+        boolean wasSelected = selection.get(index);
+        shiftSelection(index + 1, count, -1);
+        pressedIndex = -1;
+        tags.remove(index);
+
+        layout = null;
+        batch.requestLayout();
+        batch.invalidate();
+        if (animate) {
+            startChangeAnimation();
+        }
+        if (wasSelected && onTagSelectionChangedListener != null) {
+            onTagSelectionChangedListener.onTagSelectionChanged(this);
+        }
+    }
+
+    public int getTagCount() {
+        return tags.size();
+    }
+
+    /**
+     * 插入、删除标签时是否播放动画，默认关闭。
+     * <p>
+     * 动画根据变化前后的排版在绘制时插值，每帧只重绘，不重新测量、不分配内存。
+     * refresh、setLayout 整体替换标签时不播放动画。
+     */
+    public void setAnimateChanges(boolean animateChanges) {
+        this.animateChanges = animateChanges;
+        if (!animateChanges) {
+            cancelChangeAnimation();
+        }
+    }
+
+    /**
+     * 添加一种标签样式，返回样式序号。默认样式的序号为 0，最多 256 种。
+     *
+     * @param backgroundColor 背景颜色
+     * @param textColor       文字颜色
+     */
+    public int addStyle(int backgroundColor, int textColor) {
+        if (palette.size() >= MAX_STYLES) {
+            throw new IllegalStateException("at most " + MAX_STYLES + " tag styles are supported");
+        }
+        palette.add(new TagStyle(newBackgroundPaint(backgroundColor), newTextPaint(textColor)));
+        styleOrderDirty = true;
+        return palette.size() - 1;
+    }
+
+    /**
+     * 修改已有样式的颜色，使用该样式的标签一起变化，不重新测量。
+     */
+    public void setStyleColors(int style, int backgroundColor, int textColor) {
+        checkStyle(style);
+        TagStyle tagStyle = palette.get(style);
+        tagStyle.background.setColor(backgroundColor);
+        tagStyle.text.setColor(textColor);
+        if (tagStyle.count > 0) {
+            batch.invalidate();
+        }
+    }
+
+    public int getStyleCount() {
+        return palette.size();
+    }
+
+    /**
+     * 修改单个标签的样式，只重绘该标签。
+     */
+    public void setTagStyle(int index, int style) {
+        checkIndex(index);
+        checkStyle(style);
+        int old = tagStyles[index] & 0xFF;
+        if (old == style) {
+            return;
+        }
+        palette.get(old).count--;
+        palette.get(style).count++;
+        tagStyles[index] = (byte) style;
+        styleOrderDirty = true;
+        invalidateTag(index);
+    }
+
+    public int getTagStyle(int index) {
+        checkIndex(index);
+        return tagStyles[index] & 0xFF;
+    }
+
+    /**
+     * 点击标签时的选中方式，{@link #SELECT_NONE}、{@link #SELECT_SINGLE} 或 {@link #SELECT_MULTIPLE}，默认为 SELECT_NONE。
+     * <p>
+     * 切换为单选时只保留第一个选中的标签。
+     */
+    public void setSelectionMode(int selectionMode) {
+        if (selectionMode != SELECT_NONE && selectionMode != SELECT_SINGLE && selectionMode != SELECT_MULTIPLE) {
+            throw new IllegalArgumentException("selectionMode: " + selectionMode);
+        }
+        this.selectionMode = selectionMode;
+        if (selectionMode == SELECT_SINGLE) {
+            beginSelectionChange();
+            keepFirstSelected();
+            endSelectionChange();
+        }
+    }
+
+    public int getSelectionMode() {
+        return selectionMode;
+    }
+
+    /**
+     * 选中样式的颜色，所有选中的标签共用。
+     */
+    public void setSelectedColors(int backgroundColor, int textColor) {
+        selectedStyle.background.setColor(backgroundColor);
+        selectedStyle.text.setColor(textColor);
+        if (!selection.isEmpty()) {
+            batch.invalidate();
+        }
+    }
+
+    /**
+     * 修改单个标签的选中状态，单选时会取消其他标签的选中。只重绘变化的标签，不重新测量。
+     */
+    public void setTagSelected(int index, boolean selected) {
+        checkIndex(index);
+        beginSelectionChange();
+        if (selected && selectionMode == SELECT_SINGLE) {
+            selection.clear();
+        }
+        selection.set(index, selected);
+        endSelectionChange();
+    }
+
+    public boolean isTagSelected(int index) {
+        checkIndex(index);
+        return selection.get(index);
+    }
+
+    /**
+     * 选中全部标签，单选时只选中第一个。
+     */
+    public void selectAll() {
+        beginSelectionChange();
+        selection.set(0, tags.size());
+        keepFirstSelected();
+        endSelectionChange();
+    }
+
+    public void clearSelection() {
+        beginSelectionChange();
+        selection.clear();
+        endSelectionChange();
+    }
+
+    /**
+     * 反选，单选时只保留第一个。
+     */
+    public void invertSelection() {
+        beginSelectionChange();
+        selection.flip(0, tags.size());
+        keepFirstSelected();
+        endSelectionChange();
+    }
+
+    /**
+     * 选中满足条件的标签，取消其他标签的选中。单选时只选中第一个满足条件的标签。
+     */
+    public void selectIf(@NonNull TagFilter filter) {
+        beginSelectionChange();
+        selection.clear();
+        for (int i = 0; i < tags.size(); i++) {
+            if (filter.accept(i, tags.get(i))) {
+                selection.set(i);
+                if (selectionMode == SELECT_SINGLE) {
+                    break;
+                }
+            }
+        }
+        endSelectionChange();
+    }
+
+    /**
+     * 选中的标签序号，返回副本。
+     */
+    @NonNull
+    public BitSet getSelection() {
+        return (BitSet) selection.clone();
+    }
+
+    public int getSelectedCount() {
+        return selection.cardinality();
+    }
+
+    public void setOnTagSelectionChangedListener(OnTagSelectionChangedListener onTagSelectionChangedListener) {
+        this.onTagSelectionChangedListener = onTagSelectionChangedListener;
+    }
+
+    /**
+     * 使用提前计算好的排版，标签替换为 layout 中的标签。
+     * <p>
+     * 样式和可用宽度与当前 TagView 一致时，测量和绘制都不再测量文字，否则回退为同步排版。
+     *
+     * @see #newLayoutBuilder()
+     */
+    public void setLayout(@NonNull TagLayout layout) {
+        setLayout(layout, null);
+    }
+
+    /**
+     * @param styles 各标签的样式序号，参见 {@link #addStyle(int, int)}，为 null 时都使用默认样式
+     * @see #setLayout(TagLayout)
+     */
+    public void setLayout(@NonNull TagLayout layout, @Nullable byte[] styles) {
+        checkStyles(styles, layout.getTagCount());
+        cancelChangeAnimation();
+        tags.clear();
+        tags.addAll(layout.getTags());
+        setStyles(styles);
+        clearSelectionSilently();
+        pressedIndex = -1;
+        this.layout = layout;
+        batch.requestLayout();
+        batch.invalidate();
+    }
+
+    /**
+     * 与当前 TagView 样式一致的 {@link TagLayout.Builder}，还需要通过 maxWidth 设置可用宽度。
+     * <p>
+     * 需要在主线程获取，之后可以在任意线程使用。
+     */
+    @NonNull
+    public TagLayout.Builder newLayoutBuilder() {
+        return new TagLayout.Builder()
+                .textSize(textSize)
+                .tagPadding(tagPaddingHorizontal, tagPaddingVertical)
+                .tagSpace(tagSpace)
+                .lineSpace(tagLineSpace)
+                .batchMeasure(batchMeasure);
+    }
+
+    /**
+     * 是否批量测量文字，标签数量很多时减少 native 调用，但标签尺寸与默认方式略有不同，
+     * 参见 {@link TagLayout.Builder#batchMeasure(boolean)}。默认关闭。
+     */
+    public void setBatchMeasure(boolean batchMeasure) {
+        if (this.batchMeasure == batchMeasure) {
+            return;
+        }
+        this.batchMeasure = batchMeasure;
+        layoutBuilder = null;
+        layout = null;
+        batch.requestLayout();
+        batch.invalidate();
+    }
+
+    /**
+     * 开始批量修改，可嵌套。
+     * <p>
+     * 到对应的 {@link #endBatch()} 为止，期间的修改不会立即 requestLayout、invalidate，
+     * 结束时最多各执行一次，例如连续 addTag 200 次只触发一次测量和绘制。
+     */
+    public void beginBatch() {
+        batch.begin();
+    }
+
+    /**
+     * 结束批量修改，与 {@link #beginBatch()} 成对调用。
+     */
+    public void endBatch() {
+        batch.end();
+    }
+
+    /**
+     * 在一次批量修改中执行 edits，等价于 beginBatch / endBatch。
+     */
+    public void edit(@NonNull Runnable edits) {
+        batch.begin();
+        try {
+            edits.run();
+        } finally {
+            batch.end();
+        }
     }
 
 
     private void init(Context context) {
-        paintBackground = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paintBackground.setColor(getResources().getColor(R.color.colorAccent));
+        paintBackground = newBackgroundPaint(getResources().getColor(R.color.colorAccent));
+        paintText = newTextPaint(Color.WHITE);
+        palette.add(new TagStyle(paintBackground, paintText));
+        selectedStyle = new TagStyle(
+                newBackgroundPaint(getResources().getColor(R.color.colorPrimary)),
+                newTextPaint(Color.WHITE)
+        );
+    }
+
+    private Paint newBackgroundPaint(int color) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(color);
+        return paint;
+    }
 
-        paintText = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paintText.setColor(Color.WHITE);
-        paintText.setTextSize(textSize);
-        paintText.setFakeBoldText(false);
-        paintText.setTextAlign(Paint.Align.CENTER);
+    private Paint newTextPaint(int color) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(color);
+        paint.setTextSize(textSize);
+        paint.setFakeBoldText(false);
+        paint.setTextAlign(Paint.Align.CENTER);
+        return paint;
     }
 
 
     @Override
     protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_TAG_VIEW, WidgetMetrics.PHASE_DRAW);
+        try {
+            super.onDraw(canvas);
 
-        // 标签起始位置
-        float backgroundStart = getPaddingLeft();
+            if (layout == null) {
+                updateLayout(getWidth() - getPaddingLeft() - getPaddingRight());
+            }
+            TagLayout layout = this.layout;
+            int count = layout.getTagCount();
+            if (styleOrderDirty) {
+                updateStyleOrder();
+            }
 
-        for (int i = 0; i < tags.size(); i++) {
+            // 基准线距离
+            paintText.getFontMetrics(fontMetrics);
+            float distance = (fontMetrics.top + fontMetrics.bottom) / 2F;
 
-            String text = tags.get(i);
+            // 淡出中的已删除标签
+            for (int i = 0; i < transition.ghostCount; i++) {
+                TagStyle ghostStyle = palette.get(transition.ghostStyles[i] & 0xFF);
+                drawTag(canvas, transition.ghostTexts[i], transition.ghostWidths[i], transition.ghostHeights[i],
+                        transition.ghostLefts[i], transition.ghostTops[i], transition.ghostAlpha(i), ghostStyle, distance);
+            }
 
-            paintText.getTextBounds(text, 0, text.length(), rectText);
+            // 按样式分组绘制，减少 Paint 切换，选中的标签最后统一绘制
+            boolean hasSelection = !selection.isEmpty();
+            for (int style = 0; style < palette.size(); style++) {
+                int end = styleStarts[style + 1];
+                if (styleStarts[style] == end) {
+                    continue;
+                }
+                TagStyle tagStyle = palette.get(style);
+                for (int k = styleStarts[style]; k < end; k++) {
+                    int i = styleOrder[k];
+                    if (!(hasSelection && selection.get(i))) {
+                        drawTag(canvas, layout, i, tagStyle, distance);
+                    }
+                }
+            }
+            for (int i = selection.nextSetBit(0); i >= 0 && i < count; i = selection.nextSetBit(i + 1)) {
+                drawTag(canvas, layout, i, selectedStyle, distance);
+            }
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_TAG_VIEW, WidgetMetrics.PHASE_DRAW, start);
+        }
+    }
 
-            int widthText = rectText.right - rectText.left;
-            int heightText = rectText.bottom - rectText.top;
+    /**
+     * 按样式对标签序号做计数排序，绘制时每种样式的标签连续，O(标签数 + 样式数)。
+     */
+    private void updateStyleOrder() {
+        int count = tags.size();
+        int styleCount = palette.size();
+        if (styleOrder.length < count) {
+            styleOrder = new int[Math.max(count, styleOrder.length + (styleOrder.length >> 1))];
+        }
+        if (styleStarts.length < styleCount + 1) {
+            styleStarts = new int[styleCount + 1];
+            styleCursors = new int[styleCount];
+        }
+        styleStarts[0] = 0;
+        for (int style = 0; style < styleCount; style++) {
+            styleStarts[style + 1] = styleStarts[style] + palette.get(style).count;
+            styleCursors[style] = styleStarts[style];
+        }
+        for (int i = 0; i < count; i++) {
+            styleOrder[styleCursors[tagStyles[i] & 0xFF]++] = i;
+        }
+        styleOrderDirty = false;
+    }
 
-            // 基准线距离
-            Paint.FontMetrics metrics = paintText.getFontMetrics();
-            float distance = (metrics.top + metrics.bottom) / 2F;
 
-            rectBackground.top = getPaddingTop();
-            rectBackground.bottom = getPaddingTop() + heightText + 2 * tagPaddingVertical;
-            rectBackground.left = backgroundStart;
-            rectBackground.right = backgroundStart + widthText + 2 * tagPaddingHorizontal;
+    private void drawTag(Canvas canvas, TagLayout layout, int index, TagStyle style, float distance) {
+        float left = layout.lefts[index];
+        float top = layout.top(index);
+        float alpha = 1;
+        if (transition.running) {
+            left = transition.left(index, left);
+            top = transition.top(index, top);
+            alpha = transition.alpha(index);
+        }
+        if (index == pressedIndex) {
+            alpha *= PRESSED_ALPHA;
+        }
+        drawTag(canvas, tags.get(index), layout.textWidths[index], layout.textHeights[index], left, top, alpha, style, distance);
+    }
 
-            // 背景
-            canvas.drawRoundRect(rectBackground, tagRadius, tagRadius, paintBackground);
+    /**
+     * @param contentLeft 相对内容区域的左侧位置
+     * @param contentTop  相对内容区域的顶部位置
+     * @param alpha       0 ~ 1
+     */
+    private void drawTag(Canvas canvas, String text, int widthText, int heightText,
+                         float contentLeft, float contentTop, float alpha, TagStyle style, float distance) {
+        float left = getPaddingLeft() + contentLeft;
+        float top = getPaddingTop() + contentTop;
 
-            // 文字
-            canvas.drawText(
-                    text,
-                    (float) (backgroundStart + widthText / 2.0 + tagPaddingHorizontal),
-                    (float) (heightText / 2.0 + tagPaddingVertical - distance) + getPaddingTop(),
-                    paintText
-            );
+        int backgroundAlpha = style.background.getAlpha();
+        int textAlpha = style.text.getAlpha();
+        if (alpha < 1) {
+            style.background.setAlpha((int) (backgroundAlpha * alpha));
+            style.text.setAlpha((int) (textAlpha * alpha));
+        }
+
+        rectBackground.top = top;
+        rectBackground.bottom = top + TagGeometry.tagHeight(heightText, tagPaddingVertical);
+        rectBackground.left = left;
+        rectBackground.right = left + TagGeometry.tagWidth(widthText, tagPaddingHorizontal);
+
+        // 背景
+        canvas.drawRoundRect(rectBackground, tagRadius, tagRadius, style.background);
+
+        // 文字
+        canvas.drawText(
+                text,
+                (float) (left + widthText / 2.0 + tagPaddingHorizontal),
+                (float) (heightText / 2.0 + tagPaddingVertical - distance) + top,
+                style.text
+        );
+
+        if (alpha < 1) {
+            style.background.setAlpha(backgroundAlpha);
+            style.text.setAlpha(textAlpha);
+        }
+    }
+
+    /**
+     * 插入、删除标签前调用，记录各标签当前位置作为动画起点。
+     *
+     * @return 是否播放动画
+     */
+    private boolean prepareChangeAnimation() {
+        if (!animateChanges || getWindowToken() == null) {
+            cancelChangeAnimation();
+            return false;
+        }
+        if (transition.running) {
+            // 动画过程中再次修改，从当前插值位置继续
+            transition.capture(layout);
+            return true;
+        }
+        if (layout == null || layout.getTagCount() != tags.size()) {
+            // 还没有排版，没有起点
+            return false;
+        }
+        transition.start(layout);
+        return true;
+    }
+
+    private void startChangeAnimation() {
+        if (changeAnimator == null) {
+            changeAnimator = ValueAnimator.ofFloat(0, 1);
+            changeAnimator.setDuration(CHANGE_DURATION);
+            changeAnimator.setInterpolator(new DecelerateInterpolator());
+            changeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    transition.fraction = animation.getAnimatedFraction();
+                    invalidate();
+                }
+            });
+            changeAnimator.addListener(new AnimatorListenerAdapter() {
+                @Override
+                public void onAnimationEnd(Animator animation) {
+                    if (restartingChangeAnimator) {
+                        return;
+                    }
+                    transition.clear();
+                    invalidate();
+                }
+            });
+        }
+        restartingChangeAnimator = true;
+        changeAnimator.cancel();
+        restartingChangeAnimator = false;
+        transition.fraction = 0;
+        changeAnimator.start();
+    }
+
+    private void cancelChangeAnimation() {
+        if (changeAnimator != null) {
+            changeAnimator.cancel();
+        }
+        transition.clear();
+    }
 
-            // 起始位置
-            backgroundStart = rectBackground.right + tagSpace;
+    /**
+     * 只重绘单个标签，还没有排版时整体重绘。
+     */
+    private void invalidateTag(int index) {
+        if (layout == null || index >= layout.getTagCount()) {
+            batch.invalidate();
+            return;
+        }
+        int left = getPaddingLeft() + (int) layout.lefts[index];
+        int top = getPaddingTop() + (int) layout.top(index);
+        batch.invalidate(
+                left,
+                top,
+                left + TagGeometry.tagWidth(layout.textWidths[index], tagPaddingHorizontal) + 1,
+                top + TagGeometry.tagHeight(layout.textHeights[index], tagPaddingVertical) + 1
+        );
+    }
+
+
+    /**
+     * 选中状态批量修改的开始，记录修改前的状态。
+     */
+    private void beginSelectionChange() {
+        selectionChanges.clear();
+        selectionChanges.or(selection);
+    }
+
+    /**
+     * 选中状态批量修改的结束，重绘变化的标签并通知。
+     * 变化的标签在一次批量修改中合并为一个重绘区域，只调用一次 invalidate。
+     */
+    private void endSelectionChange() {
+        selectionChanges.xor(selection);
+        if (selectionChanges.isEmpty()) {
+            return;
+        }
+        batch.begin();
+        try {
+            for (int i = selectionChanges.nextSetBit(0); i >= 0; i = selectionChanges.nextSetBit(i + 1)) {
+                invalidateTag(i);
+            }
+        } finally {
+            batch.end();
+        }
+        selectionChanges.clear();
+        if (onTagSelectionChangedListener != null) {
+            onTagSelectionChangedListener.onTagSelectionChanged(this);
+        }
+    }
 
+    /**
+     * 将 [from, to) 的选中状态整体移动 offset 位，只处理其中选中的标签。
+     */
+    private void shiftSelection(int from, int to, int offset) {
+        if (selection.nextSetBit(Math.min(from, from + offset)) < 0) {
+            return;
+        }
+        BitSet tail = selection.get(from, to);
+        selection.clear(Math.min(from, from + offset), to);
+        for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+            selection.set(from + offset + i);
         }
+    }
 
+    private void keepFirstSelected() {
+        if (selectionMode != SELECT_SINGLE) {
+            return;
+        }
+        int first = selection.nextSetBit(0);
+        if (first >= 0) {
+            selection.clear(first + 1, Math.max(selection.length(), first + 1));
+        }
+    }
+
+    /**
+     * 标签整体替换时清空选中状态，随后会整体重绘。
+     */
+    private void clearSelectionSilently() {
+        if (selection.isEmpty()) {
+            return;
+        }
+        selection.clear();
+        if (onTagSelectionChangedListener != null) {
+            onTagSelectionChangedListener.onTagSelectionChanged(this);
+        }
+    }
+
+    /**
+     * 坐标所在的标签，没有时返回 -1。
+     */
+    private int tagAt(float x, float y) {
+        if (layout == null) {
+            return -1;
+        }
+        float contentX = x - getPaddingLeft();
+        float contentY = y - getPaddingTop();
+        for (int i = 0; i < layout.getTagCount(); i++) {
+            float left = layout.lefts[i];
+            float top = layout.top(i);
+            if (contentX >= left && contentX < left + TagGeometry.tagWidth(layout.textWidths[i], tagPaddingHorizontal)
+                    && contentY >= top && contentY < top + TagGeometry.tagHeight(layout.textHeights[i], tagPaddingVertical)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled() || selectionMode == SELECT_NONE) {
+            return super.onTouchEvent(event);
+        }
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                setPressed(true);
+                setPressedIndex(tagAt(event.getX(), event.getY()));
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                // 移出按下的标签后取消
+                if (pressedIndex >= 0 && tagAt(event.getX(), event.getY()) != pressedIndex) {
+                    setPressedIndex(-1);
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                int index = tagAt(event.getX(), event.getY());
+                boolean clicked = index >= 0 && index == pressedIndex;
+                setPressed(false);
+                setPressedIndex(-1);
+                if (clicked) {
+                    // 单选时再次点击已选中的标签不取消
+                    setTagSelected(index, selectionMode == SELECT_SINGLE || !selection.get(index));
+                    performClick();
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                setPressed(false);
+                setPressedIndex(-1);
+                return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * 按下的标签半透明显示，只重绘变化的标签。
+     */
+    private void setPressedIndex(int index) {
+        if (pressedIndex == index) {
+            return;
+        }
+        if (pressedIndex >= 0) {
+            invalidateTag(pressedIndex);
+        }
+        pressedIndex = index;
+        if (index >= 0) {
+            invalidateTag(index);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelChangeAnimation();
+        super.onDetachedFromWindow();
     }
 
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_TAG_VIEW, WidgetMetrics.PHASE_MEASURE);
+        try {
+            // 宽度不限时不折行
+            int maxWidth = 0;
+            if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+                maxWidth = MeasureSpec.getSize(widthMeasureSpec) - getPaddingLeft() - getPaddingRight();
+            }
+            updateLayout(maxWidth);
+            setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_TAG_VIEW, WidgetMetrics.PHASE_MEASURE, start);
+        }
     }
 
     private int measureWidth(int measureSpec) {
@@ -167,26 +953,256 @@ public class TagView extends View {
     }
 
 
-    private int contentWidth() {
-        float width = 0;
-        Rect bounds = new Rect();
-        for (int i = 0; i < tags.size(); i++) {
-            String text = tags.get(i);
-            paintText.getTextBounds(text, 0, text.length(), bounds);
-            int tagWidth = (bounds.right - bounds.left) + 2 * tagPaddingHorizontal;
-            width += tagWidth + tagSpace;
+    /**
+     * 当前排版与可用宽度不一致时重新排版。
+     *
+     * @param maxWidth 可用宽度，不大于 0 时不折行
+     */
+    private void updateLayout(int maxWidth) {
+        if (layout != null && layout.matches(textSize, tagPaddingHorizontal, tagPaddingVertical, tagSpace, tagLineSpace, batchMeasure, maxWidth)) {
+            return;
+        }
+        if (layoutBuilder == null) {
+            layoutBuilder = newLayoutBuilder();
+        }
+        layout = layoutBuilder.maxWidth(maxWidth).build(tags);
+    }
+
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= tags.size()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + tags.size());
+        }
+    }
+
+    private void checkStyle(int style) {
+        if (style < 0 || style >= palette.size()) {
+            throw new IllegalArgumentException("unknown tag style: " + style);
+        }
+    }
+
+    private void checkStyles(byte[] styles, int count) {
+        if (styles == null) {
+            return;
+        }
+        if (styles.length < count) {
+            throw new IllegalArgumentException("styles.length is less than the tag count");
+        }
+        for (int i = 0; i < count; i++) {
+            checkStyle(styles[i] & 0xFF);
+        }
+    }
+
+    /**
+     * 替换全部标签的样式，tags 已更新。
+     */
+    private void setStyles(byte[] styles) {
+        int count = tags.size();
+        ensureStyleCapacity(count);
+        if (styles == null) {
+            Arrays.fill(tagStyles, 0, count, (byte) 0);
+        } else {
+            System.arraycopy(styles, 0, tagStyles, 0, count);
+        }
+        for (int i = 0; i < palette.size(); i++) {
+            palette.get(i).count = 0;
         }
-        return (int) width - tagSpace;
+        for (int i = 0; i < count; i++) {
+            palette.get(tagStyles[i] & 0xFF).count++;
+        }
+        styleOrderDirty = true;
+    }
+
+    private void ensureStyleCapacity(int capacity) {
+        if (tagStyles.length < capacity) {
+            tagStyles = Arrays.copyOf(tagStyles, Math.max(capacity, tagStyles.length + (tagStyles.length >> 1)));
+        }
+    }
+
+
+    private int contentWidth() {
+        return layout.getWidth();
     }
 
 
     private int contentHeight() {
-        if (tags.size() > 0) {
-            Rect bounds = new Rect();
-            paintText.getTextBounds(tags.get(0), 0, tags.get(0).length(), bounds);
-            return (bounds.bottom - bounds.top) + 2 * tagPaddingVertical;
+        return layout.getHeight();
+    }
+
+
+    /**
+     * 调色板中的一种样式，使用该样式的标签共用 Paint。
+     */
+    private static class TagStyle {
+
+        final Paint background;
+
+        final Paint text;
+
+        // 使用该样式的标签数量，为 0 时绘制时跳过
+        int count;
+
+        TagStyle(Paint background, Paint text) {
+            this.background = background;
+            this.text = text;
         }
-        return 0;
+
+    }
+
+
+    /**
+     * 插入、删除标签的过渡状态：各标签的起点位置和透明度，以及淡出中的已删除标签。
+     * <p>
+     * 终点就是当前排版，绘制时按 fraction 插值。数组按需扩容复用。
+     */
+    private static class ChangeTransition {
+
+        boolean running = false;
+
+        float fraction = 0;
+
+        // 各标签的起点，与 tags 一一对应，位置为 NaN 表示新插入的标签，直接使用终点位置
+        float[] fromLefts = new float[0];
+
+        float[] fromTops = new float[0];
+
+        float[] fromAlphas = new float[0];
+
+        // 已删除的标签
+        int ghostCount = 0;
+
+        String[] ghostTexts = new String[0];
+
+        int[] ghostWidths = new int[0];
+
+        int[] ghostHeights = new int[0];
+
+        byte[] ghostStyles = new byte[0];
+
+        float[] ghostLefts = new float[0];
+
+        float[] ghostTops = new float[0];
+
+        float[] ghostAlphas = new float[0];
+
+        float left(int index, float target) {
+            float from = fromLefts[index];
+            return Float.isNaN(from) ? target : from + (target - from) * fraction;
+        }
+
+        float top(int index, float target) {
+            float from = fromTops[index];
+            return Float.isNaN(from) ? target : from + (target - from) * fraction;
+        }
+
+        float alpha(int index) {
+            return fromAlphas[index] + (1 - fromAlphas[index]) * fraction;
+        }
+
+        float ghostAlpha(int index) {
+            return ghostAlphas[index] * (1 - fraction);
+        }
+
+        /**
+         * 以静止的排版作为起点。
+         */
+        void start(TagLayout layout) {
+            int count = layout.getTagCount();
+            ensureCapacity(count + 1);
+            for (int i = 0; i < count; i++) {
+                fromLefts[i] = layout.lefts[i];
+                fromTops[i] = layout.top(i);
+                fromAlphas[i] = 1;
+            }
+            ghostCount = 0;
+            running = true;
+        }
+
+        /**
+         * 以当前插值结果作为新的起点，layout 为 null 表示还没有重新排版，保持原起点。
+         */
+        void capture(TagLayout layout) {
+            if (layout != null) {
+                int count = layout.getTagCount();
+                for (int i = 0; i < count; i++) {
+                    float left = left(i, layout.lefts[i]);
+                    float top = top(i, layout.top(i));
+                    fromAlphas[i] = alpha(i);
+                    fromLefts[i] = left;
+                    fromTops[i] = top;
+                }
+            }
+            for (int i = 0; i < ghostCount; i++) {
+                ghostAlphas[i] = ghostAlpha(i);
+            }
+            fraction = 0;
+        }
+
+        /**
+         * @param count 插入前的标签数量
+         */
+        void onInsert(int index, int count) {
+            ensureCapacity(count + 1);
+            System.arraycopy(fromLefts, index, fromLefts, index + 1, count - index);
+            System.arraycopy(fromTops, index, fromTops, index + 1, count - index);
+            System.arraycopy(fromAlphas, index, fromAlphas, index + 1, count - index);
+            fromLefts[index] = Float.NaN;
+            fromTops[index] = Float.NaN;
+            fromAlphas[index] = 0;
+        }
+
+        /**
+         * @param count  删除前的标签数量
+         * @param layout 删除前的排版，为 null 时被删除的标签直接消失
+         */
+        void onRemove(int index, int count, TagLayout layout, String text, byte style) {
+            if (layout != null && index < layout.getTagCount() && !Float.isNaN(fromLefts[index])) {
+                ensureGhostCapacity(ghostCount + 1);
+                ghostTexts[ghostCount] = text;
+                ghostWidths[ghostCount] = layout.textWidths[index];
+                ghostHeights[ghostCount] = layout.textHeights[index];
+                ghostStyles[ghostCount] = style;
+                ghostLefts[ghostCount] = fromLefts[index];
+                ghostTops[ghostCount] = fromTops[index];
+                ghostAlphas[ghostCount] = fromAlphas[index];
+                ghostCount++;
+            }
+            System.arraycopy(fromLefts, index + 1, fromLefts, index, count - index - 1);
+            System.arraycopy(fromTops, index + 1, fromTops, index, count - index - 1);
+            System.arraycopy(fromAlphas, index + 1, fromAlphas, index, count - index - 1);
+        }
+
+        void clear() {
+            running = false;
+            fraction = 0;
+            for (int i = 0; i < ghostCount; i++) {
+                ghostTexts[i] = null;
+            }
+            ghostCount = 0;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (fromLefts.length < capacity) {
+                int length = Math.max(capacity, fromLefts.length + (fromLefts.length >> 1));
+                fromLefts = Arrays.copyOf(fromLefts, length);
+                fromTops = Arrays.copyOf(fromTops, length);
+                fromAlphas = Arrays.copyOf(fromAlphas, length);
+            }
+        }
+
+        private void ensureGhostCapacity(int capacity) {
+            if (ghostTexts.length < capacity) {
+                int length = Math.max(capacity, ghostTexts.length + (ghostTexts.length >> 1));
+                ghostTexts = Arrays.copyOf(ghostTexts, length);
+                ghostWidths = Arrays.copyOf(ghostWidths, length);
+                ghostHeights = Arrays.copyOf(ghostHeights, length);
+                ghostStyles = Arrays.copyOf(ghostStyles, length);
+                ghostLefts = Arrays.copyOf(ghostLefts, length);
+                ghostTops = Arrays.copyOf(ghostTops, length);
+                ghostAlphas = Arrays.copyOf(ghostAlphas, length);
+            }
+        }
+
     }
 
 }
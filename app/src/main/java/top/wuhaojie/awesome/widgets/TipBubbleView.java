@@ -0,0 +1,412 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+import top.wuhaojie.awesome.widgets.geometry.TipGeometry;
+
+/**
+ * TipView 的气泡视图。
+ * <p>
+ * 气泡主体和箭头合并为一条路径绘制，文字使用缓存的 StaticLayout，关闭按钮直接绘制，
+ * 替代原先 ConstraintLayout + 4 个箭头 ImageView + TextView 的布局。
+ */
+class TipBubbleView extends View {
+
+    private static final int COLOR_BACKGROUND = 0xCC000000;
+
+    private final Paint backgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint closePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    // 气泡主体 + 箭头，尺寸或箭头变化时重新计算
+    private final Path bubblePath = new Path();
+
+    private boolean pathDirty = true;
+
+    private final RectF bodyRect = new RectF();
+
+    private final RectF closeRect = new RectF();
+
+    private CharSequence text = "";
+
+    // 文字排版，仅在文字、字号或宽度变化时重新创建
+    private StaticLayout textLayout;
+
+    private int textLayoutWidth = -1;
+
+    private boolean closeVisible = false;
+
+    private boolean closePressed = false;
+
+    private OnClickListener onCloseClickListener;
+
+    // 箭头所在的边，取值 TipGeometry.TOP / BOTTOM / LEFT / RIGHT
+    private int arrowEdge = TipGeometry.TOP;
+
+    // 箭头起始位置（相对 padding 后的左侧或顶部），小于 0 时居中
+    private int arrowOffset = -1;
+
+    private final int arrowBase;
+
+    private final int arrowHeight;
+
+    private final int cornerRadius;
+
+    private final int contentPadding;
+
+    private final int maxTextWidth;
+
+    private final int closeSize;
+
+    private final int closeGlyphSize;
+
+    TipBubbleView(Context context) {
+        super(context);
+
+        arrowBase = dp2px(7);
+        arrowHeight = dp2px(3);
+        cornerRadius = dp2px(2);
+        contentPadding = dp2px(10);
+        maxTextWidth = dp2px(200);
+        closeSize = dp2px(20);
+        closeGlyphSize = dp2px(10);
+
+        backgroundPaint.setStyle(Paint.Style.FILL);
+        backgroundPaint.setColor(COLOR_BACKGROUND);
+
+        closePaint.setStyle(Paint.Style.STROKE);
+        closePaint.setStrokeCap(Paint.Cap.ROUND);
+        closePaint.setStrokeWidth(dp2px(1));
+        closePaint.setColor(Color.WHITE);
+
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 9, getResources().getDisplayMetrics()));
+    }
+
+    public void setText(CharSequence text) {
+        if (text == null) {
+            text = "";
+        }
+        if (TextUtils.equals(this.text, text)) {
+            return;
+        }
+        this.text = text;
+        textLayout = null;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * @param size 单位 sp
+     */
+    public void setTextSize(float size) {
+        float px = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size, getResources().getDisplayMetrics());
+        if (textPaint.getTextSize() == px) {
+            return;
+        }
+        textPaint.setTextSize(px);
+        textLayout = null;
+        requestLayout();
+        invalidate();
+    }
+
+    public void setCloseVisible(boolean closeVisible) {
+        if (this.closeVisible == closeVisible) {
+            return;
+        }
+        this.closeVisible = closeVisible;
+        requestLayout();
+        invalidate();
+    }
+
+    public void setOnCloseClickListener(OnClickListener listener) {
+        this.onCloseClickListener = listener;
+    }
+
+    /**
+     * 设置箭头位置。
+     *
+     * @param edge   箭头所在的边，取值 TipGeometry.TOP / BOTTOM / LEFT / RIGHT
+     * @param offset 箭头起始位置，上下边为相对 paddingLeft 的 x，左右边为相对 paddingTop 的 y，小于 0 时居中
+     */
+    public void setArrow(int edge, int offset) {
+        if (arrowEdge == edge && arrowOffset == offset) {
+            return;
+        }
+        boolean sizeChanged = isVertical(arrowEdge) != isVertical(edge);
+        arrowEdge = edge;
+        arrowOffset = offset;
+        pathDirty = true;
+        if (sizeChanged) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    public int getArrowWidth() {
+        return isVertical(arrowEdge) ? arrowBase : arrowHeight;
+    }
+
+    public int getArrowHeight() {
+        return isVertical(arrowEdge) ? arrowHeight : arrowBase;
+    }
+
+    private static boolean isVertical(int edge) {
+        return edge == TipGeometry.TOP || edge == TipGeometry.BOTTOM;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_TIP_VIEW, WidgetMetrics.PHASE_MEASURE);
+        try {
+            setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_TIP_VIEW, WidgetMetrics.PHASE_MEASURE, start);
+        }
+    }
+
+    private int measureWidth(int measureSpec) {
+        int result;
+        int specMode = MeasureSpec.getMode(measureSpec);
+        int specSize = MeasureSpec.getSize(measureSpec);
+        int extra = getPaddingLeft() + getPaddingRight() + 2 * contentPadding
+                + (closeVisible ? closeSize : 0)
+                + (isVertical(arrowEdge) ? 0 : arrowHeight);
+        if (specMode == MeasureSpec.EXACTLY) {
+            result = specSize;
+            ensureTextLayout(Math.min(specSize - extra, maxTextWidth));
+        } else {
+            int maxWidth = maxTextWidth;
+            if (specMode == MeasureSpec.AT_MOST) {
+                maxWidth = Math.min(maxWidth, specSize - extra);
+            }
+            int desired = (int) Math.ceil(Layout.getDesiredWidth(text, textPaint));
+            ensureTextLayout(Math.min(desired, maxWidth));
+            result = textLayout.getWidth() + extra;
+            if (specMode == MeasureSpec.AT_MOST) {
+                result = Math.min(result, specSize);
+            }
+        }
+        return result;
+    }
+
+    private int measureHeight(int measureSpec) {
+        int result;
+        int specMode = MeasureSpec.getMode(measureSpec);
+        int specSize = MeasureSpec.getSize(measureSpec);
+        if (specMode == MeasureSpec.EXACTLY) {
+            result = specSize;
+        } else {
+            result = contentHeight() + getPaddingTop() + getPaddingBottom();
+            if (specMode == MeasureSpec.AT_MOST) {
+                result = Math.min(result, specSize);
+            }
+        }
+        return result;
+    }
+
+    private int contentHeight() {
+        int inner = Math.max(textLayout.getHeight(), closeVisible ? closeSize : 0);
+        return inner + 2 * contentPadding + (isVertical(arrowEdge) ? arrowHeight : 0);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void ensureTextLayout(int width) {
+        width = Math.max(width, 0);
+        if (textLayout != null && textLayoutWidth == width) {
+            return;
+        }
+        textLayout = new StaticLayout(text, textPaint, width, Layout.Alignment.ALIGN_NORMAL, 1F, 0F, true);
+        textLayoutWidth = width;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        pathDirty = true;
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        pathDirty = true;
+    }
+
+    /**
+     * 计算气泡主体、箭头和关闭按钮的位置。
+     * <p>
+     * 箭头与主体是同一路径中的两个同向子路径，使用默认的非零环绕规则填充，
+     * 重叠部分只绘制一次，半透明背景不会出现接缝。
+     */
+    private void updatePath() {
+        bodyRect.set(getPaddingLeft(), getPaddingTop(), getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+        switch (arrowEdge) {
+            case TipGeometry.TOP:
+                bodyRect.top += arrowHeight;
+                break;
+            case TipGeometry.BOTTOM:
+                bodyRect.bottom -= arrowHeight;
+                break;
+            case TipGeometry.LEFT:
+                bodyRect.left += arrowHeight;
+                break;
+            case TipGeometry.RIGHT:
+                bodyRect.right -= arrowHeight;
+                break;
+        }
+
+        bubblePath.reset();
+        bubblePath.addRoundRect(bodyRect, cornerRadius, cornerRadius, Path.Direction.CW);
+
+        // 箭头底边压入主体 1px，避免抗锯齿产生缝隙
+        float start;
+        switch (arrowEdge) {
+            case TipGeometry.TOP:
+                start = clampArrow(getPaddingLeft(), bodyRect.left, bodyRect.right);
+                bubblePath.moveTo(start, bodyRect.top + 1);
+                bubblePath.lineTo(start + arrowBase / 2F, bodyRect.top - arrowHeight);
+                bubblePath.lineTo(start + arrowBase, bodyRect.top + 1);
+                break;
+            case TipGeometry.BOTTOM:
+                start = clampArrow(getPaddingLeft(), bodyRect.left, bodyRect.right);
+                bubblePath.moveTo(start + arrowBase, bodyRect.bottom - 1);
+                bubblePath.lineTo(start + arrowBase / 2F, bodyRect.bottom + arrowHeight);
+                bubblePath.lineTo(start, bodyRect.bottom - 1);
+                break;
+            case TipGeometry.LEFT:
+                start = clampArrow(getPaddingTop(), bodyRect.top, bodyRect.bottom);
+                bubblePath.moveTo(bodyRect.left + 1, start + arrowBase);
+                bubblePath.lineTo(bodyRect.left - arrowHeight, start + arrowBase / 2F);
+                bubblePath.lineTo(bodyRect.left + 1, start);
+                break;
+            case TipGeometry.RIGHT:
+                start = clampArrow(getPaddingTop(), bodyRect.top, bodyRect.bottom);
+                bubblePath.moveTo(bodyRect.right - 1, start);
+                bubblePath.lineTo(bodyRect.right + arrowHeight, start + arrowBase / 2F);
+                bubblePath.lineTo(bodyRect.right - 1, start + arrowBase);
+                break;
+        }
+        bubblePath.close();
+
+        float closeLeft = bodyRect.right - contentPadding - closeSize;
+        float closeTop = bodyRect.centerY() - closeSize / 2F;
+        closeRect.set(closeLeft, closeTop, closeLeft + closeSize, closeTop + closeSize);
+
+        pathDirty = false;
+    }
+
+    /**
+     * 箭头限制在主体范围内，不压到圆角上。
+     */
+    private float clampArrow(int padding, float from, float to) {
+        float min = from + cornerRadius;
+        float max = to - cornerRadius - arrowBase;
+        float start = arrowOffset < 0 ? (from + to - arrowBase) / 2F : padding + arrowOffset;
+        return Math.max(min, Math.min(start, max));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_TIP_VIEW, WidgetMetrics.PHASE_DRAW);
+        try {
+            super.onDraw(canvas);
+
+            if (pathDirty) {
+                updatePath();
+            }
+
+            canvas.drawPath(bubblePath, backgroundPaint);
+
+            if (textLayout != null) {
+                float textTop = bodyRect.centerY() - textLayout.getHeight() / 2F;
+                canvas.save();
+                canvas.translate(bodyRect.left + contentPadding, textTop);
+                textLayout.draw(canvas);
+                canvas.restore();
+            }
+
+            if (closeVisible) {
+                float inset = (closeSize - closeGlyphSize) / 2F;
+                float left = closeRect.left + inset;
+                float top = closeRect.top + inset;
+                float right = closeRect.right - inset;
+                float bottom = closeRect.bottom - inset;
+                closePaint.setAlpha(closePressed ? 0x99 : 0xFF);
+                canvas.drawLine(left, top, right, bottom, closePaint);
+                canvas.drawLine(right, top, left, bottom, closePaint);
+            }
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_TIP_VIEW, WidgetMetrics.PHASE_DRAW, start);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!closeVisible) {
+            return super.onTouchEvent(event);
+        }
+        boolean inClose = closeRect.contains(event.getX(), event.getY());
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                if (inClose) {
+                    setClosePressed(true);
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (closePressed) {
+                    setClosePressed(inClose);
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (closePressed) {
+                    setClosePressed(false);
+                    if (inClose) {
+                        performClick();
+                        if (onCloseClickListener != null) {
+                            onCloseClickListener.onClick(this);
+                        }
+                    }
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                setClosePressed(false);
+                break;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    private void setClosePressed(boolean pressed) {
+        if (closePressed != pressed) {
+            closePressed = pressed;
+            invalidate((int) closeRect.left, (int) closeRect.top, (int) Math.ceil(closeRect.right), (int) Math.ceil(closeRect.bottom));
+        }
+    }
+
+    private int dp2px(float dp) {
+        float scale = getResources().getDisplayMetrics().density;
+        return (int) (dp * scale + 0.5F);
+    }
+
+}
@@ -0,0 +1,191 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.animation.DecelerateInterpolator;
+
+/**
+ * 引导型 TipView 的聚光遮罩：除锚点外整个窗口变暗。
+ * <p>
+ * 遮罩和锚点镂空是同一条 even-odd 路径，只在锚点区域变化时重新计算，不需要全屏的 Bitmap。
+ * 展开动画只刷新镂空区域。
+ */
+class TipSpotlightView extends View {
+
+    private static final int COLOR_SCRIM = 0x99000000;
+
+    private static final long REVEAL_DURATION = 300;
+
+    private final Paint scrimPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    // 遮罩 + 镂空，尺寸或镂空区域变化时重新计算
+    private final Path scrimPath = new Path();
+
+    private boolean pathDirty = true;
+
+    // 锚点区域（已加上外边距）
+    private final RectF anchorRect = new RectF();
+
+    // 当前镂空区域，展开动画过程中小于锚点区域
+    private final RectF cutoutRect = new RectF();
+
+    private final Rect dirtyRect = new Rect();
+
+    private float revealFraction = 1;
+
+    private ValueAnimator revealAnimator;
+
+    private final int cutoutPadding;
+
+    private final int cutoutRadius;
+
+    TipSpotlightView(Context context) {
+        super(context);
+
+        cutoutPadding = dp2px(4);
+        cutoutRadius = dp2px(4);
+
+        scrimPaint.setStyle(Paint.Style.FILL);
+        scrimPaint.setColor(COLOR_SCRIM);
+        scrimPath.setFillType(Path.FillType.EVEN_ODD);
+    }
+
+    /**
+     * 设置锚点，参数与 TipGeometry.AnchorDesc 一致，区域未变化时不做任何事。
+     *
+     * @param x 中心 x 坐标
+     * @param y 中心 y 坐标
+     */
+    public void setAnchor(int x, int y, int width, int height) {
+        float left = x - width / 2F - cutoutPadding;
+        float top = y - height / 2F - cutoutPadding;
+        float right = left + width + 2 * cutoutPadding;
+        float bottom = top + height + 2 * cutoutPadding;
+        if (anchorRect.left == left && anchorRect.top == top && anchorRect.right == right && anchorRect.bottom == bottom) {
+            return;
+        }
+        anchorRect.set(left, top, right, bottom);
+        updateCutout();
+    }
+
+    /**
+     * 镂空区域从锚点中心展开。
+     */
+    public void startReveal() {
+        cancelReveal();
+        revealAnimator = ValueAnimator.ofFloat(0, 1);
+        revealAnimator.setDuration(REVEAL_DURATION);
+        revealAnimator.setInterpolator(new DecelerateInterpolator());
+        revealAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                revealFraction = (float) animation.getAnimatedValue();
+                updateCutout();
+            }
+        });
+        revealFraction = 0;
+        updateCutout();
+        revealAnimator.start();
+    }
+
+    private void cancelReveal() {
+        if (revealAnimator != null) {
+            revealAnimator.cancel();
+            revealAnimator = null;
+        }
+    }
+
+    /**
+     * 按展开进度计算镂空区域，只刷新变化前后的并集。
+     */
+    private void updateCutout() {
+        float halfWidth = anchorRect.width() / 2F * revealFraction;
+        float halfHeight = anchorRect.height() / 2F * revealFraction;
+        float centerX = anchorRect.centerX();
+        float centerY = anchorRect.centerY();
+
+        dirtyRect.set(
+                (int) Math.floor(cutoutRect.left),
+                (int) Math.floor(cutoutRect.top),
+                (int) Math.ceil(cutoutRect.right),
+                (int) Math.ceil(cutoutRect.bottom)
+        );
+
+        cutoutRect.set(centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight);
+
+        dirtyRect.union(
+                (int) Math.floor(cutoutRect.left),
+                (int) Math.floor(cutoutRect.top),
+                (int) Math.ceil(cutoutRect.right),
+                (int) Math.ceil(cutoutRect.bottom)
+        );
+
+        pathDirty = true;
+        if (!dirtyRect.isEmpty()) {
+            // 抗锯齿边缘
+            dirtyRect.inset(-1, -1);
+            invalidate(dirtyRect);
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        pathDirty = true;
+    }
+
+    private void updatePath() {
+        scrimPath.reset();
+        scrimPath.addRect(0, 0, getWidth(), getHeight(), Path.Direction.CW);
+        if (!cutoutRect.isEmpty()) {
+            float radius = cutoutRadius * revealFraction;
+            scrimPath.addRoundRect(cutoutRect, radius, radius, Path.Direction.CW);
+        }
+        pathDirty = false;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (pathDirty) {
+            updatePath();
+        }
+        canvas.drawPath(scrimPath, scrimPaint);
+    }
+
+    /**
+     * 引导型气泡只能通过关闭按钮关闭，遮罩拦截所有触摸。
+     * 抬起时仍然走 performClick，无障碍服务可以感知到点击。
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_UP) {
+            performClick();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelReveal();
+        super.onDetachedFromWindow();
+    }
+
+    private int dp2px(float dp) {
+        float scale = getResources().getDisplayMetrics().density;
+        return (int) (dp * scale + 0.5F);
+    }
+
+}
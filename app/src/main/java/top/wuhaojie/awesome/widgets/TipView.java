@@ -6,18 +6,23 @@ import android.graphics.Point;
 import android.graphics.drawable.BitmapDrawable;
 import android.os.Build;
 import android.util.Log;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.PopupWindow;
-import android.widget.TextView;
 
 import androidx.annotation.Nullable;
 
 import java.util.HashSet;
 import java.util.Set;
 
+import top.wuhaojie.awesome.widgets.geometry.TipGeometry;
+import top.wuhaojie.awesome.widgets.geometry.TipGeometry.AnchorDesc;
+import top.wuhaojie.awesome.widgets.geometry.TipGeometry.ArrowDesc;
+import top.wuhaojie.awesome.widgets.geometry.TipGeometry.ContentViewDesc;
+import top.wuhaojie.awesome.widgets.geometry.TipGeometry.PopupPoint;
+import top.wuhaojie.awesome.widgets.geometry.TipGeometry.WindowDesc;
+
 public final class TipView {
 
     private static final String TAG = TipView.class.getSimpleName();
@@ -43,6 +48,20 @@ public final class TipView {
 
     private PopupWindow popupWindow;
 
+    // 引导型聚光遮罩
+    private boolean spotlight = false;
+
+    private boolean spotlightReveal = false;
+
+    private PopupWindow spotlightWindow;
+
+    private TipSpotlightView spotlightView;
+
+    private View spotlightAnchor;
+
+    // 气泡位置计算结果，每次 show 复用
+    private final PopupPoint popupPoint = new PopupPoint();
+
     private static final Set<TipView> tipViews = new HashSet<>();
 
     private TipView() {
@@ -58,6 +77,10 @@ public final class TipView {
 
         private int windowType = WindowType.TYPE_TIP;
 
+        private boolean spotlight = false;
+
+        private boolean spotlightReveal = false;
+
         public static class WindowType {
             public static final int TYPE_GUIDE = 1;
             public static final int TYPE_TIP = 2;
@@ -120,6 +143,17 @@ public final class TipView {
             return this;
         }
 
+        /**
+         * 引导型气泡展示时，除锚点外整个窗口变暗，仅对 WindowType.TYPE_GUIDE 生效。
+         *
+         * @param reveal 是否播放镂空区域从锚点中心展开的动画
+         */
+        public Builder spotlight(boolean spotlight, boolean reveal) {
+            this.spotlight = spotlight;
+            this.spotlightReveal = reveal;
+            return this;
+        }
+
         public TipView build() {
 
             TipView tipView = new TipView();
@@ -129,6 +163,8 @@ public final class TipView {
                 case WindowType.TYPE_GUIDE:
                     tipView.closeVisible = true;
                     tipView.outSideTouchDismiss = false;
+                    tipView.spotlight = spotlight;
+                    tipView.spotlightReveal = spotlightReveal;
                     break;
                 case WindowType.TYPE_TIP:
                     tipView.closeVisible = false;
@@ -177,12 +213,12 @@ public final class TipView {
      * 展示方位
      */
     public static class Gravity {
-        public static final int TOP = 1;
-        public static final int BOTTOM = 2;
-        public static final int LEFT = 3;
-        public static final int RIGHT = 4;
-        public static final int HORIZONTAL = 5;
-        public static final int VERTICAL = 6;
+        public static final int TOP = TipGeometry.TOP;
+        public static final int BOTTOM = TipGeometry.BOTTOM;
+        public static final int LEFT = TipGeometry.LEFT;
+        public static final int RIGHT = TipGeometry.RIGHT;
+        public static final int HORIZONTAL = TipGeometry.HORIZONTAL;
+        public static final int VERTICAL = TipGeometry.VERTICAL;
     }
 
     public boolean isShowing() {
@@ -204,441 +240,204 @@ public final class TipView {
                 popupWindow.setOnDismissListener(null);
                 popupWindow = null;
             }
+            dismissSpotlight();
             tipViews.remove(TipView.this);
         }
 
     };
 
 
-    private final static class PopupPoint {
-
-        /**
-         * 箭头的位置
-         */
-        final Point arrow = new Point();
-
-        /**
-         * 视图的位置
-         */
-        final Point location = new Point();
-
-    }
-
-    /**
-     * 锚点描述
-     */
-    private final static class AnchorDesc {
-
-        /**
-         * 中心点坐标 X
-         */
-        int x;
-
-        /**
-         * 中心点坐标 Y
-         */
-        int y;
-
-        /**
-         * 锚点宽度
-         */
-        int width;
-
-        /**
-         * 锚点高度
-         */
-        int height;
-
-
-        AnchorDesc(int x, int y, int width, int height) {
-            this.x = x;
-            this.y = y;
-            this.width = width;
-            this.height = height;
-        }
-
-    }
-
-    /**
-     * 父窗口描述
-     */
-    private final static class WindowDesc {
-
-        /**
-         * 宽度
-         */
-        int width;
-
-        /**
-         * 高度
-         */
-        int height;
-
-        WindowDesc(int width, int height) {
-            this.width = width;
-            this.height = height;
-        }
-
-    }
-
     /**
-     * 箭头描述
+     * 气泡展示在锚点的某一侧时，箭头位于气泡的另一侧。
      */
-    private final static class ArrowDesc {
-
-        /**
-         * 宽度
-         */
-        int width;
-
-        /**
-         * 高度
-         */
-        int height;
-
-        ArrowDesc(int width, int height) {
-            this.width = width;
-            this.height = height;
+    private static int arrowEdge(int gravity) {
+        switch (gravity) {
+            case Gravity.TOP:
+                return TipGeometry.BOTTOM;
+            case Gravity.LEFT:
+                return TipGeometry.RIGHT;
+            case Gravity.RIGHT:
+                return TipGeometry.LEFT;
+            case Gravity.BOTTOM:
+            default:
+                return TipGeometry.TOP;
         }
-
     }
 
-    private final static class ContentViewDesc {
-
-        int width;
-
-        int height;
-
-        int paddingTop;
-
-        int paddingBottom;
-
-        int paddingLeft;
-
-        int paddingRight;
-
-        ContentViewDesc(int width, int height, int paddingTop, int paddingBottom, int paddingLeft, int paddingRight) {
-            this.width = width;
-            this.height = height;
-            this.paddingTop = paddingTop;
-            this.paddingBottom = paddingBottom;
-            this.paddingLeft = paddingLeft;
-            this.paddingRight = paddingRight;
-        }
 
+    public void show(View anchorView) {
+        show(anchorView, Gravity.VERTICAL);
     }
 
+    public void show(View anchorView, int gravity) {
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_TIP_VIEW, WidgetMetrics.PHASE_SHOW);
+        try {
+            // 移除
+            if (repeatShow()) {
+                return;
+            }
 
-    private abstract static class GravityProcessor {
+            Context context = anchorView.getContext();
 
-        abstract PopupPoint doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor);
+            TipBubbleView contentView = new TipBubbleView(context);
 
-    }
+            // 参数: 父窗口数据描述
+            WindowDesc windowDesc = new WindowDesc(parentWindowSize.x, parentWindowSize.y);
 
+            // 参数: 锚点描述
+            AnchorDesc anchorDesc = createAnchorDesc(anchorView);
 
-    private static abstract class GravityTopBottomProcessor extends GravityProcessor {
+            // 1、重新计算 gravity
+            gravity = TipGeometry.prepareGravity(gravity, windowDesc, anchorDesc);
 
-        @Override
-        protected PopupPoint doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor) {
+            // 2、处理视图样式
 
-            // 返回值构造
-            PopupPoint popupPoint = new PopupPoint();
-            int arrowX = 0;
-            int arrowY = 0;
+            // 边距
+            contentView.setPadding(paddingHorizontal, paddingVertical, paddingHorizontal, paddingVertical);
 
-            // 处理箭头（垂直方向仅处理水平位置即可）
-            int leftSpace = anchor.x;
-            int rightSpace = window.width - anchor.x;
+            // 正文文本
+            contentView.setTextSize(textSize);
+            contentView.setText(content);
 
-            int minSpace = Math.min(leftSpace, rightSpace);
-            int contentViewHalfWidth = contentView.width / 2;
-
-            if (minSpace >= contentViewHalfWidth) {
-                // 空间足够，可以放中间
-                arrowX = contentViewHalfWidth - contentView.paddingLeft - arrow.width / 2;
-            } else {
-                // 空间不够
-                if (leftSpace < rightSpace) {
-                    // 在左边展示
-                    arrowX = anchor.x - contentView.paddingLeft - arrow.width / 2;
-                    // 左侧越界处理
-                    if (arrowX < 0) {
-                        arrowX = 0;
+            // 关闭按钮
+            contentView.setCloseVisible(closeVisible);
+            if (closeVisible) {
+                contentView.setOnCloseClickListener(new View.OnClickListener() {
+                    @Override
+                    public void onClick(View view) {
+                        dismiss();
                     }
-                } else {
-                    // 在右边展示
-                    int contentRightPart = rightSpace - contentView.paddingRight;
-                    int contentViewRealWidth = contentView.width - contentView.paddingLeft - contentView.paddingRight;
-                    arrowX = contentViewRealWidth - contentRightPart - arrow.width / 2;
-                    // 右侧越界处理
-                    if (arrowX > contentViewRealWidth - arrow.width) {
-                        arrowX = contentViewRealWidth - arrow.width;
-                    }
-                }
+                });
             }
 
-            popupPoint.arrow.x = arrowX;
-            popupPoint.arrow.y = arrowY;
-
-            // 处理视图位置
-            Point location = location(contentView, anchor);
-
-            popupPoint.location.x = location.x;
-            popupPoint.location.y = location.y;
-
-            return popupPoint;
-        }
-
-
-        protected abstract Point location(ContentViewDesc contentView, AnchorDesc anchor);
-
-    }
-
-    private static class GravityTopProcessor extends GravityTopBottomProcessor {
-
-        @Override
-        protected Point location(ContentViewDesc contentView, AnchorDesc anchor) {
-            // 构造返回值
-            Point location = new Point();
-
-            // 展示在上方，箭头朝下
-            location.x = anchor.x - (contentView.width / 2);
-            location.y = anchor.y - (anchor.height / 2) - contentView.height;
-
-            return location;
-        }
-
-    }
-
-    private static class GravityBottomProcessor extends GravityTopBottomProcessor {
-
-        @Override
-        protected Point location(ContentViewDesc contentView, AnchorDesc anchor) {
-            // 构造返回值
-            Point location = new Point();
-
-            // 展示在下方，箭头朝上
-            location.x = anchor.x - (contentView.width / 2);
-            location.y = anchor.y + (anchor.height / 2);
-
-            return location;
-        }
-
-    }
-
-    private static class GravityLeftProcessor extends GravityProcessor {
-
-        @Override
-        protected PopupPoint doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor) {
-
-            // 构造返回值
-            PopupPoint popupPoint = new PopupPoint();
-
-            // 展示在左边
-            popupPoint.location.x = anchor.x - (anchor.width / 2) - contentView.width;
-            popupPoint.location.y = anchor.y - (contentView.height / 2);
+            // 箭头朝向锚点
+            int arrowEdge = arrowEdge(gravity);
+            contentView.setArrow(arrowEdge, -1);
+
+            // 重新测量下距离
+            contentView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+
+            // 参数: 箭头描述
+            ArrowDesc arrowDesc = new ArrowDesc(contentView.getArrowWidth(), contentView.getArrowHeight());
+
+            // 参数: 气泡视图描述
+            ContentViewDesc contentViewDesc = new ContentViewDesc(
+                    contentView.getMeasuredWidth(),
+                    contentView.getMeasuredHeight(),
+                    contentView.getPaddingTop(),
+                    contentView.getPaddingBottom(),
+                    contentView.getPaddingLeft(),
+                    contentView.getPaddingRight()
+            );
+
+            // 3、根据展示方位，计算坐标位置
+            TipGeometry.process(gravity, contentViewDesc, arrowDesc, windowDesc, anchorDesc, popupPoint);
+            if (popupPoint.outOfBounds && Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "越界, gravity = " + gravity);
+            }
 
-            int leftSpace = anchor.x - (anchor.width / 2);
-            if (leftSpace < contentView.width) {
-                Log.d(TAG, "左侧越界");
+            // 设置箭头位置，左右两侧的箭头垂直居中
+            if (arrowEdge == TipGeometry.TOP || arrowEdge == TipGeometry.BOTTOM) {
+                contentView.setArrow(arrowEdge, popupPoint.arrowX);
             }
 
-            return popupPoint;
-        }
+            popupWindow = new PopupWindow(); // todo BasePopupWindow
+            popupWindow.setContentView(contentView);
+            popupWindow.setWidth(WindowManager.LayoutParams.WRAP_CONTENT);
+            popupWindow.setHeight(WindowManager.LayoutParams.WRAP_CONTENT);
+            // 点击外部是否可取消
+            popupWindow.setOutsideTouchable(true);
+            // 不允许超出屏幕边界
+            popupWindow.setClippingEnabled(true);
+            // Android 6.0 以下，解决外部触摸取消
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+                popupWindow.setBackgroundDrawable(new BitmapDrawable());
+            }
+            // 关闭时释放资源
+            popupWindow.setOnDismissListener(onDismissListener);
 
-    }
 
+            if (spotlight) {
+                showSpotlight(anchorView, anchorDesc);
+            }
 
-    private static class GravityRightProcessor extends GravityProcessor {
+            int locationX = popupPoint.locationX;
+            int locationY = popupPoint.locationY;
 
-        @Override
-        protected PopupPoint doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor) {
+            int overX, overY;
 
-            // 构造返回值
-            PopupPoint popupPoint = new PopupPoint();
+//            contentView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
 
-            // 展示在右边
-            popupPoint.location.x = anchor.x + (anchor.width / 2);
-            popupPoint.location.y = anchor.y - (contentView.height / 2);
+            if (locationX < 0) {
+                // x 越界
+                locationX = 0;
+            } else if (locationX + contentView.getMeasuredWidth() > windowDesc.width) {
+                locationX = windowDesc.width - contentView.getWidth();
+            }
 
-            int leftPart = anchor.x + anchor.width / 2;
-            int rightSpace = window.width - leftPart;
-            if (rightSpace < contentView.width) {
-                Log.d(TAG, "右侧越界");
+            if (locationY < 0) {
+                locationY = 0;
+            } else if (locationY + contentView.getMeasuredHeight() > windowDesc.height) {
+                locationY = windowDesc.height - contentView.getHeight();
             }
 
-            return popupPoint;
-        }
 
-    }
+            popupWindow.showAtLocation(anchorView, android.view.Gravity.NO_GRAVITY, locationX, locationY);
 
+            popupWindow.setClippingEnabled(true);
+            popupWindow.update();
 
-    private int prepareGravity(int gravity, WindowDesc window, AnchorDesc anchor) {
-        if (gravity == Gravity.VERTICAL) {
-            // 上方距离 < 下方距离 => 视图展示在下方
-            return anchor.y < window.height - anchor.y ? Gravity.BOTTOM : Gravity.TOP;
-        }
-        if (gravity == Gravity.HORIZONTAL) {
-            // 左方距离 < 右方距离 => 视图展示在右方
-            return anchor.x < window.width - anchor.x ? Gravity.RIGHT : Gravity.LEFT;
+            // 加入到队列
+            tipViews.add(this);
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_TIP_VIEW, WidgetMetrics.PHASE_SHOW, start);
         }
-        return gravity;
     }
 
+    /**
+     * 在气泡下方展示全窗口的聚光遮罩，锚点位置变化时跟随更新。
+     */
+    private void showSpotlight(View anchorView, AnchorDesc anchorDesc) {
+        spotlightView = new TipSpotlightView(anchorView.getContext());
+        spotlightView.setAnchor(anchorDesc.x, anchorDesc.y, anchorDesc.width, anchorDesc.height);
 
-    private View hideArrow(View contentView, int gravity) {
-        View arrowTop = contentView.findViewById(R.id.view_arrow_top);
-        View arrowBottom = contentView.findViewById(R.id.view_arrow_bottom);
-        View arrowLeft = contentView.findViewById(R.id.view_arrow_left);
-        View arrowRight = contentView.findViewById(R.id.view_arrow_right);
-
-        arrowTop.setVisibility(View.GONE);
-        arrowBottom.setVisibility(View.GONE);
-        arrowLeft.setVisibility(View.GONE);
-        arrowRight.setVisibility(View.GONE);
-
-        switch (gravity) {
-            case Gravity.TOP:
-                arrowBottom.setVisibility(View.VISIBLE);
-                return arrowBottom;
-            case Gravity.BOTTOM:
-                arrowTop.setVisibility(View.VISIBLE);
-                return arrowTop;
-            case Gravity.LEFT:
-                arrowRight.setVisibility(View.VISIBLE);
-                return arrowRight;
-            case Gravity.RIGHT:
-                arrowLeft.setVisibility(View.VISIBLE);
-                return arrowLeft;
+        spotlightWindow = new PopupWindow(spotlightView, parentWindowSize.x, parentWindowSize.y);
+        spotlightWindow.setClippingEnabled(false);
+        spotlightWindow.showAtLocation(anchorView, android.view.Gravity.NO_GRAVITY, 0, 0);
 
+        if (spotlightReveal) {
+            spotlightView.startReveal();
         }
-        return arrowTop;
-    }
-
 
-    public void show(View anchorView) {
-        show(anchorView, Gravity.VERTICAL);
+        spotlightAnchor = anchorView;
+        spotlightAnchor.addOnLayoutChangeListener(onAnchorLayoutChangeListener);
     }
 
-    public void show(View anchorView, int gravity) {
-
-        // 移除
-        if (repeatShow()) {
-            return;
+    private void dismissSpotlight() {
+        if (spotlightAnchor != null) {
+            spotlightAnchor.removeOnLayoutChangeListener(onAnchorLayoutChangeListener);
+            spotlightAnchor = null;
         }
-
-        Context context = anchorView.getContext();
-
-        View contentView = LayoutInflater.from(context).inflate(R.layout.view_tip_view_content, null, false);
-
-        // 参数: 父窗口数据描述
-        WindowDesc windowDesc = new WindowDesc(parentWindowSize.x, parentWindowSize.y);
-
-        // 参数: 锚点描述
-        AnchorDesc anchorDesc = createAnchorDesc(anchorView);
-
-        // 1、重新计算 gravity
-        gravity = prepareGravity(gravity, windowDesc, anchorDesc);
-
-        // 2、处理视图样式
-
-        // 边距
-        contentView.setPadding(paddingHorizontal, paddingVertical, paddingHorizontal, paddingVertical);
-
-        // 正文文本
-        TextView textContent = contentView.findViewById(R.id.tv_content);
-        textContent.setTextSize(textSize);
-        textContent.setText(content);
-
-        // 关闭按钮
-        View closeView = contentView.findViewById(R.id.view_close);
-        if (closeVisible) {
-            closeView.setVisibility(View.VISIBLE);
-            closeView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    dismiss();
-                }
-            });
-        } else {
-            closeView.setVisibility(View.GONE);
-        }
-
-        // 隐藏其它箭头
-        View arrowView = hideArrow(contentView, gravity);
-
-        // 重新测量下距离
-        contentView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
-
-        // 参数: 箭头描述
-        ArrowDesc arrowDesc = new ArrowDesc(arrowView.getMeasuredWidth(), arrowView.getMeasuredHeight());
-
-        // 参数: 气泡视图描述
-        ContentViewDesc contentViewDesc = new ContentViewDesc(
-                contentView.getMeasuredWidth(),
-                contentView.getMeasuredHeight(),
-                contentView.getPaddingTop(),
-                contentView.getPaddingBottom(),
-                contentView.getPaddingLeft(),
-                contentView.getPaddingRight()
-        );
-
-        // 3、根据展示方位，计算坐标位置
-        GravityProcessor processor = findGravityProcessor(gravity);
-        PopupPoint popupPoint = processor.doProcess(contentViewDesc, arrowDesc, windowDesc, anchorDesc);
-
-        // 设置箭头位置
-        arrowView.setX(popupPoint.arrow.x);
-        arrowView.setY(popupPoint.arrow.y);
-
-        popupWindow = new PopupWindow(); // todo BasePopupWindow
-        popupWindow.setContentView(contentView);
-        popupWindow.setWidth(WindowManager.LayoutParams.WRAP_CONTENT);
-        popupWindow.setHeight(WindowManager.LayoutParams.WRAP_CONTENT);
-        // 点击外部是否可取消
-        popupWindow.setOutsideTouchable(true);
-        // 不允许超出屏幕边界
-        popupWindow.setClippingEnabled(true);
-        // Android 6.0 以下，解决外部触摸取消
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
-            popupWindow.setBackgroundDrawable(new BitmapDrawable());
+        if (spotlightWindow != null) {
+            spotlightWindow.dismiss();
+            spotlightWindow = null;
         }
-        // 关闭时释放资源
-        popupWindow.setOnDismissListener(onDismissListener);
-
-
-        int locationX = popupPoint.location.x;
-        int locationY = popupPoint.location.y;
-
-        int overX, overY;
-
-        System.out.println(locationX + " : " + locationY);
-
-//        contentView.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+        spotlightView = null;
+    }
 
-        if (locationX < 0) {
-            // x 越界
-            locationX = 0;
-        } else if (locationX + contentView.getMeasuredWidth() > windowDesc.width) {
-            locationX = windowDesc.width - contentView.getWidth();
-        }
+    private View.OnLayoutChangeListener onAnchorLayoutChangeListener = new View.OnLayoutChangeListener() {
 
-        if (locationY < 0) {
-            locationY = 0;
-        } else if (locationY + contentView.getMeasuredHeight() > windowDesc.height) {
-            locationY = windowDesc.height - contentView.getHeight();
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                   int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            if (spotlightView != null) {
+                AnchorDesc anchorDesc = createAnchorDesc(v);
+                // 区域未变化时不会重新计算路径
+                spotlightView.setAnchor(anchorDesc.x, anchorDesc.y, anchorDesc.width, anchorDesc.height);
+            }
         }
 
-
-        popupWindow.showAtLocation(anchorView, android.view.Gravity.NO_GRAVITY, locationX, locationY);
-
-        popupWindow.setClippingEnabled(true);
-        popupWindow.update();
-
-        // 加入到队列
-        tipViews.add(this);
-
-    }
+    };
 
     private boolean repeatShow() {
         for (TipView tipView : tipViews) {
@@ -663,28 +462,6 @@ public final class TipView {
         return new AnchorDesc(x, y, view.getMeasuredWidth(), view.getMeasuredHeight());
     }
 
-    private GravityProcessor findGravityProcessor(int gravity) {
-        GravityProcessor processor;
-        switch (gravity) {
-            case Gravity.TOP:
-                processor = new GravityTopProcessor();
-                break;
-            case Gravity.BOTTOM:
-                processor = new GravityBottomProcessor();
-                break;
-            case Gravity.LEFT:
-                processor = new GravityLeftProcessor();
-                break;
-            case Gravity.RIGHT:
-                processor = new GravityRightProcessor();
-                break;
-            default:
-                processor = new GravityBottomProcessor();
-                break;
-        }
-        return processor;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,101 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 斜角标签位图缓存。
+ * <p>
+ * 相同文字、颜色、尺寸的角标只渲染一次，之后每次绘制只需一次 drawBitmap。
+ * 容量为应用内存级别的 1/32，系统内存紧张时自动裁剪。
+ * 通过 {@link TriangleBadgeDrawable#setBitmapCache(TriangleBadgeBitmapCache)} 按需开启。
+ */
+public final class TriangleBadgeBitmapCache implements ComponentCallbacks2 {
+
+    // 占应用内存级别的比例
+    private static final int MEMORY_FRACTION = 32;
+
+    private static TriangleBadgeBitmapCache instance;
+
+    private final LruCache<String, Bitmap> cache;
+
+    private final float density;
+
+    private TriangleBadgeBitmapCache(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClass = activityManager.getMemoryClass();
+        int maxSize = memoryClass * 1024 * 1024 / MEMORY_FRACTION;
+
+        cache = new LruCache<String, Bitmap>(maxSize) {
+
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+        };
+        density = context.getResources().getDisplayMetrics().density;
+    }
+
+    public static synchronized TriangleBadgeBitmapCache get(@NonNull Context context) {
+        if (instance == null) {
+            Context application = context.getApplicationContext();
+            instance = new TriangleBadgeBitmapCache(application);
+            application.registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * 取得角标位图，没有时渲染并放入缓存。
+     *
+     * @return 尺寸无效时返回 null
+     */
+    @Nullable
+    Bitmap obtain(@NonNull TriangleBadgeDrawable badge) {
+        int size = badge.getBadgeWidth();
+        if (size <= 0) {
+            return null;
+        }
+        String key = badge.cacheKey(density);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+        bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        badge.drawCacheContent(new Canvas(bitmap));
+        cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    public void clear() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            cache.evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            cache.trimToSize(cache.size() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+}
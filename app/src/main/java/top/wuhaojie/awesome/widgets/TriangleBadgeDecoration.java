@@ -0,0 +1,61 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 在 RecyclerView 条目右上角绘制斜角标签，条目布局中无需 TriangleBadgeView。
+ */
+public class TriangleBadgeDecoration extends RecyclerView.ItemDecoration {
+
+    /**
+     * 提供各位置的角标。
+     * <p>
+     * 相同文字的角标建议复用同一个 {@link TriangleBadgeDrawable}，避免重复计算文字位置。
+     */
+    public interface BadgeProvider {
+
+        /**
+         * @param position adapter position
+         * @return 角标，无角标时返回 null
+         */
+        @Nullable
+        Drawable getBadge(int position);
+
+    }
+
+    private final BadgeProvider provider;
+
+    private final Rect childBounds = new Rect();
+
+    public TriangleBadgeDecoration(@NonNull BadgeProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+            Drawable badge = provider.getBadge(position);
+            if (badge == null) {
+                continue;
+            }
+            int left = child.getLeft() + Math.round(child.getTranslationX());
+            int top = child.getTop() + Math.round(child.getTranslationY());
+            childBounds.set(left, top, left + child.getWidth(), top + child.getHeight());
+            badge.setBounds(childBounds);
+            badge.draw(canvas);
+        }
+    }
+
+}
@@ -0,0 +1,411 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import top.wuhaojie.awesome.widgets.geometry.RibbonGeometry;
+
+/**
+ * 斜角标签 Drawable，绘制在 bounds 的右上角。
+ * <p>
+ * 可作为 foreground 叠加在任意 View 上，或配合 {@link TriangleBadgeDecoration} 在列表中使用，无需额外的 View。
+ */
+public class TriangleBadgeDrawable extends Drawable {
+
+    private static final int DEFAULT_BADGE_COLOR = 0xFFFFBD00;
+
+    private static final int DEFAULT_TEXT_COLOR = 0xFF000000;
+
+    // 自适应字号的最小值，单位 px
+    private static final int MIN_AUTO_FIT_TEXT_SIZE = 8;
+
+    /**
+     * 自适应字号缓存，key 为 文字 + 彩带尺寸 + 字体，列表中相同角标不再重复二分查找
+     */
+    private static final LruCache<String, Integer> AUTO_FIT_CACHE = new LruCache<>(128);
+
+    private final Rect textBounds = new Rect();
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    // 绘制缓存位图，透明度在这里应用
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    // 彩带路径，尺寸变化时重新计算
+    private final Path path = new Path();
+
+    private int width = 300;
+
+    private int offset = 150;
+
+    private String text = "";
+
+    private int textSize = 60;
+
+    private int textColor = DEFAULT_TEXT_COLOR;
+
+    private int badgeColor = DEFAULT_BADGE_COLOR;
+
+    private int alpha = 0xFF;
+
+    // 是否根据彩带尺寸自动缩小字号
+    private boolean autoFitText = false;
+
+    private ColorFilter colorFilter;
+
+    // 位图缓存，为空时直接绘制
+    private TriangleBadgeBitmapCache bitmapCache;
+
+    // 位图缓存 key，影响位图内容的属性变化时置空
+    private String cacheKey;
+
+    // cacheKey 对应的屏幕密度
+    private float cacheKeyDensity;
+
+    // 旋转后的文字坐标
+    private float textX = 0;
+
+    private float textBaselineY = 0;
+
+    public TriangleBadgeDrawable() {
+        this("");
+    }
+
+    public TriangleBadgeDrawable(@Nullable String text) {
+        this.text = text != null ? text : "";
+
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(badgeColor);
+
+        textPaint.setStyle(Paint.Style.FILL);
+        textPaint.setColor(textColor);
+        textPaint.setTextSize(textSize);
+        textPaint.setFakeBoldText(true);
+
+        updatePath();
+        updateText();
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        Rect bounds = getBounds();
+
+        if (bitmapCache != null && colorFilter == null) {
+            Bitmap bitmap = bitmapCache.obtain(this);
+            if (bitmap != null) {
+                // 位图按不透明渲染，透明度变化时无需重新渲染
+                bitmapPaint.setAlpha(alpha);
+                canvas.drawBitmap(bitmap, bounds.right - width, bounds.top, alpha == 0xFF ? null : bitmapPaint);
+                return;
+            }
+        }
+
+        int saveCount = canvas.save();
+        canvas.translate(bounds.right - width, bounds.top);
+        drawContent(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 以 (0, 0) 为左上角绘制角标。
+     */
+    void drawContent(@NonNull Canvas canvas) {
+        canvas.drawPath(path, paint);
+
+        int saveCount = canvas.save();
+        canvas.rotate(45, width / 2F, width / 2F);
+        canvas.drawText(text, textX, textBaselineY, textPaint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 按不透明绘制到缓存位图，透明度在绘制位图时应用。
+     */
+    void drawCacheContent(@NonNull Canvas canvas) {
+        paint.setAlpha(badgeColor >>> 24);
+        textPaint.setAlpha(textColor >>> 24);
+        drawContent(canvas);
+        paint.setAlpha(modulateAlpha(badgeColor >>> 24));
+        textPaint.setAlpha(modulateAlpha(textColor >>> 24));
+    }
+
+    /**
+     * 设置位图缓存，相同样式的角标共用一张位图，适合列表中大量重复的角标。
+     *
+     * @param bitmapCache 为空时关闭缓存
+     */
+    public void setBitmapCache(@Nullable TriangleBadgeBitmapCache bitmapCache) {
+        if (this.bitmapCache == bitmapCache) {
+            return;
+        }
+        this.bitmapCache = bitmapCache;
+        invalidateSelf();
+    }
+
+    /**
+     * 位图缓存 key：文字、颜色、尺寸、字体、屏幕密度，不含透明度。
+     * 属性不变时复用同一个 key，绘制时不再拼接字符串。
+     */
+    @NonNull
+    String cacheKey(float density) {
+        if (cacheKey == null || cacheKeyDensity != density) {
+            Typeface typeface = textPaint.getTypeface();
+            cacheKey = text + '|' + textColor + '|' + badgeColor
+                    + '|' + textPaint.getTextSize() + '|' + width + '|' + offset
+                    + '|' + (typeface != null ? typeface.hashCode() : 0) + '|' + density;
+            cacheKeyDensity = density;
+        }
+        return cacheKey;
+    }
+
+    /**
+     * 位图内容变化，重新生成缓存 key 并重绘。
+     */
+    private void invalidateContent() {
+        cacheKey = null;
+        invalidateSelf();
+    }
+
+    /**
+     * 彩带路径，仅在 width、offset 变化时计算。
+     */
+    private void updatePath() {
+        path.reset();
+        path.lineTo(width - offset, 0);
+        path.lineTo(width, offset);
+        path.lineTo(width, width);
+        path.lineTo(0, 0);
+        path.close();
+    }
+
+    /**
+     * 旋转后文字的位置，仅在文字、字号、width、offset 变化时计算。
+     */
+    private void updateText() {
+        textPaint.setTextSize(autoFitText ? autoFitTextSize() : textSize);
+        textPaint.getTextBounds(text, 0, text.length(), textBounds);
+
+        int textWidth = textBounds.right - textBounds.left;
+
+        textX = RibbonGeometry.textX(width, textWidth);
+        float y = RibbonGeometry.bandTop(width, offset);
+        textBaselineY = y + Math.abs(textPaint.ascent() + textPaint.descent()) / 2;
+    }
+
+    /**
+     * 在 [MIN_AUTO_FIT_TEXT_SIZE, textSize] 内二分查找能放进彩带的最大字号。
+     */
+    private int autoFitTextSize() {
+        Typeface typeface = textPaint.getTypeface();
+        String key = text + '|' + width + '|' + offset + '|' + textSize
+                + '|' + (typeface != null ? typeface.hashCode() : 0) + '|' + textPaint.isFakeBoldText();
+        Integer cached = AUTO_FIT_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int low = Math.min(MIN_AUTO_FIT_TEXT_SIZE, textSize);
+        int high = textSize;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (fits(middle)) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        AUTO_FIT_CACHE.put(key, low);
+        return low;
+    }
+
+    /**
+     * 指定字号的文字能否放进彩带，见 {@link RibbonGeometry#fits(int, int, int, int)}。
+     */
+    private boolean fits(int size) {
+        textPaint.setTextSize(size);
+        textPaint.getTextBounds(text, 0, text.length(), textBounds);
+
+        int textWidth = textBounds.right - textBounds.left;
+        int textHeight = textBounds.bottom - textBounds.top;
+
+        return RibbonGeometry.fits(width, offset, textWidth, textHeight);
+    }
+
+    /**
+     * 设置是否根据彩带尺寸自动缩小字号，此时 {@link #setTextSize(int)} 为最大字号。
+     */
+    public void setAutoFitText(boolean autoFitText) {
+        if (this.autoFitText == autoFitText) {
+            return;
+        }
+        this.autoFitText = autoFitText;
+        updateText();
+        invalidateContent();
+    }
+
+    public boolean isAutoFitText() {
+        return autoFitText;
+    }
+
+    public void setTypeface(@Nullable Typeface typeface) {
+        if (textPaint.getTypeface() == typeface) {
+            return;
+        }
+        textPaint.setTypeface(typeface);
+        updateText();
+        invalidateContent();
+    }
+
+    public void setText(@Nullable String text) {
+        if (text == null) {
+            text = "";
+        }
+        if (text.equals(this.text)) {
+            return;
+        }
+        this.text = text;
+        updateText();
+        invalidateContent();
+    }
+
+    @NonNull
+    public String getText() {
+        return text;
+    }
+
+    public void setTextColor(int textColor) {
+        if (this.textColor == textColor) {
+            return;
+        }
+        this.textColor = textColor;
+        textPaint.setColor(textColor);
+        textPaint.setAlpha(modulateAlpha(textColor >>> 24));
+        invalidateContent();
+    }
+
+    public int getTextColor() {
+        return textColor;
+    }
+
+    /**
+     * @param textSize 单位 px
+     */
+    public void setTextSize(int textSize) {
+        if (this.textSize == textSize) {
+            return;
+        }
+        this.textSize = textSize;
+        updateText();
+        invalidateContent();
+    }
+
+    public int getTextSize() {
+        return textSize;
+    }
+
+    public void setBadgeColor(int badgeColor) {
+        if (this.badgeColor == badgeColor) {
+            return;
+        }
+        this.badgeColor = badgeColor;
+        paint.setColor(badgeColor);
+        paint.setAlpha(modulateAlpha(badgeColor >>> 24));
+        invalidateContent();
+    }
+
+    public int getBadgeColor() {
+        return badgeColor;
+    }
+
+    /**
+     * @param width 角标边长，单位 px
+     */
+    public void setBadgeWidth(int width) {
+        if (this.width == width) {
+            return;
+        }
+        this.width = width;
+        updatePath();
+        updateText();
+        invalidateContent();
+    }
+
+    public int getBadgeWidth() {
+        return width;
+    }
+
+    /**
+     * @param offset 彩带内侧到顶角的距离，单位 px
+     */
+    public void setBadgeOffset(int offset) {
+        if (this.offset == offset) {
+            return;
+        }
+        this.offset = offset;
+        updatePath();
+        updateText();
+        invalidateContent();
+    }
+
+    public int getBadgeOffset() {
+        return offset;
+    }
+
+    private int modulateAlpha(int colorAlpha) {
+        return colorAlpha * (alpha + (alpha >> 7)) >> 8;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return width;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return width;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (this.alpha == alpha) {
+            return;
+        }
+        this.alpha = alpha;
+        paint.setAlpha(modulateAlpha(badgeColor >>> 24));
+        textPaint.setAlpha(modulateAlpha(textColor >>> 24));
+        invalidateSelf();
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        this.colorFilter = colorFilter;
+        paint.setColorFilter(colorFilter);
+        textPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+}
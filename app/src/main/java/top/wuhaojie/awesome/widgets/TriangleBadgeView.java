@@ -1,102 +1,148 @@
 package top.wuhaojie.awesome.widgets;
 
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 public class TriangleBadgeView extends View {
 
     public static final String TAG = TriangleBadgeView.class.getSimpleName();
 
-    private final Rect bounds = new Rect();
-
-    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-
-    private int width = 300;
-
-    private int offset = 150;
-
-    private String text = "斜角标签";
-
-    private int textSize = 60;
-
-    private int textColor = Color.parseColor("#000000");
+    // 绘制逻辑与 TriangleBadgeDrawable 共用
+    private final TriangleBadgeDrawable badge = new TriangleBadgeDrawable("斜角标签");
 
 
     public TriangleBadgeView(Context context) {
         super(context);
+        init(null);
     }
 
     public TriangleBadgeView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
+        init(attrs);
     }
 
     public TriangleBadgeView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        init(attrs);
+    }
+
+    private void init(AttributeSet attrs) {
+        initAttrs(attrs);
+        updateBadgeBounds();
+        badge.setCallback(this);
+    }
+
+    private void initAttrs(AttributeSet attrs) {
+        if (attrs == null) {
+            return;
+        }
+        TypedArray attributes = getContext().obtainStyledAttributes(attrs, R.styleable.TriangleBadgeView);
+        String attrText = attributes.getString(R.styleable.TriangleBadgeView_nw_badge_text);
+        if (attrText != null) {
+            badge.setText(attrText);
+        }
+        badge.setTextColor(attributes.getColor(R.styleable.TriangleBadgeView_nw_badge_text_color, badge.getTextColor()));
+        badge.setTextSize(attributes.getDimensionPixelSize(R.styleable.TriangleBadgeView_nw_badge_text_size, badge.getTextSize()));
+        badge.setBadgeColor(attributes.getColor(R.styleable.TriangleBadgeView_nw_badge_color, badge.getBadgeColor()));
+        badge.setBadgeWidth(attributes.getDimensionPixelSize(R.styleable.TriangleBadgeView_nw_badge_width, badge.getBadgeWidth()));
+        badge.setBadgeOffset(attributes.getDimensionPixelSize(R.styleable.TriangleBadgeView_nw_badge_offset, badge.getBadgeOffset()));
+        badge.setAutoFitText(attributes.getBoolean(R.styleable.TriangleBadgeView_nw_badge_auto_fit_text, false));
+        setBitmapCacheEnabled(attributes.getBoolean(R.styleable.TriangleBadgeView_nw_badge_bitmap_cache, false));
+        attributes.recycle();
     }
 
 
     @Override
     public void draw(Canvas canvas) {
-        super.draw(canvas);
-
-        paint.setColor(Color.parseColor("#FFBD00"));
-        paint.setStyle(Paint.Style.FILL);
-
-        Path path = new Path();
-        path.lineTo(width - offset, 0);
-        path.lineTo(width, offset);
-        path.lineTo(width, width);
-        path.lineTo(0, 0);
-        canvas.drawPath(path, paint);
-        canvas.save();
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_TRIANGLE_BADGE_VIEW, WidgetMetrics.PHASE_DRAW);
+        try {
+            super.draw(canvas);
+            badge.draw(canvas);
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_TRIANGLE_BADGE_VIEW, WidgetMetrics.PHASE_DRAW, start);
+        }
+    }
 
+    private void updateBadgeBounds() {
+        badge.setBounds(0, 0, badge.getBadgeWidth(), badge.getBadgeWidth());
+    }
 
-        paint.setColor(textColor);
-        paint.setStyle(Paint.Style.FILL);
-        paint.setTextSize(textSize);
-        paint.setFakeBoldText(true);
-        paint.getTextBounds(text, 0, text.length(), bounds);
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == badge || super.verifyDrawable(who);
+    }
 
-        int textWidth = bounds.right - bounds.left;
-        int textHeight = bounds.bottom - bounds.top;
+    public void setText(@Nullable String text) {
+        badge.setText(text);
+    }
 
-        float widthHeight = calculateEqualSideLen(width);
-        float offsetHeight = calculateEqualSideLen(offset);
+    public String getText() {
+        return badge.getText();
+    }
 
-        // 颜色彩带高度
-        float contentHeight = widthHeight - offsetHeight;
-        // 文本上下边距
-        float textPadding = (float) ((contentHeight - textHeight) / 2.0);
+    public void setTextColor(int textColor) {
+        badge.setTextColor(textColor);
+    }
 
-        Log.d(TAG, "textPadding: " + textPadding + "; contentHeight: " + contentHeight);
+    /**
+     * @param textSize 单位 px
+     */
+    public void setTextSize(int textSize) {
+        badge.setTextSize(textSize);
+    }
 
-        canvas.rotate(45, width / 2, width / 2);
+    /**
+     * 设置是否根据彩带尺寸自动缩小字号，此时 {@link #setTextSize(int)} 为最大字号。
+     */
+    public void setAutoFitText(boolean autoFitText) {
+        badge.setAutoFitText(autoFitText);
+    }
 
-        float x = (float) ((width - textWidth) / 2.0);
-        float y = (float) (width / 2.0 - contentHeight / 2.0);
-        float baselineY = y + Math.abs(paint.ascent() + paint.descent()) / 2;
+    /**
+     * 开启后相同样式的角标共用同一张位图，参见 {@link TriangleBadgeBitmapCache}。
+     */
+    public void setBitmapCacheEnabled(boolean enabled) {
+        badge.setBitmapCache(enabled ? TriangleBadgeBitmapCache.get(getContext()) : null);
+    }
 
-        canvas.drawText(text, x, baselineY, paint);
-        canvas.restore();
+    public void setBadgeColor(int badgeColor) {
+        badge.setBadgeColor(badgeColor);
+    }
 
+    /**
+     * @param width 角标边长，单位 px
+     */
+    public void setBadgeWidth(int width) {
+        if (badge.getBadgeWidth() == width) {
+            return;
+        }
+        badge.setBadgeWidth(width);
+        updateBadgeBounds();
+        requestLayout();
     }
 
-    private float calculateEqualSideLen(int longLen) {
-        return (float) (Math.sqrt(2) * longLen / 2.0);
+    /**
+     * @param offset 彩带内侧到顶角的距离，单位 px
+     */
+    public void setBadgeOffset(int offset) {
+        badge.setBadgeOffset(offset);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        long start = WidgetMetrics.begin(WidgetMetrics.WIDGET_TRIANGLE_BADGE_VIEW, WidgetMetrics.PHASE_MEASURE);
+        try {
+            setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
+        } finally {
+            WidgetMetrics.end(WidgetMetrics.WIDGET_TRIANGLE_BADGE_VIEW, WidgetMetrics.PHASE_MEASURE, start);
+        }
     }
 
     private int measureWidth(int measureSpec) {
@@ -106,7 +152,7 @@ public class TriangleBadgeView extends View {
         if (specMode == MeasureSpec.EXACTLY) {
             result = specSize;
         } else {
-            result = width + getPaddingLeft() + getPaddingRight();
+            result = badge.getBadgeWidth() + getPaddingLeft() + getPaddingRight();
             if (specMode == MeasureSpec.AT_MOST) {
                 result = Math.min(result, specSize);
             }
@@ -122,7 +168,7 @@ public class TriangleBadgeView extends View {
         if (specMode == MeasureSpec.EXACTLY) {
             result = specSize;
         } else {
-            result = width + getPaddingTop() + getPaddingBottom();
+            result = badge.getBadgeWidth() + getPaddingTop() + getPaddingBottom();
             if (specMode == MeasureSpec.AT_MOST) {
                 result = Math.min(result, specSize);
             }
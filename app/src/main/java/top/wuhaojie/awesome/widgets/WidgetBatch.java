@@ -0,0 +1,114 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.view.View;
+
+/**
+ * 控件的批量编辑。
+ * <p>
+ * begin / end 之间的 requestLayout、invalidate 只记录，end 时每种最多执行一次；
+ * 批量编辑之外直接调用 View 的对应方法，同一帧内的多次 invalidate 由 View 自身合并。
+ * <p>
+ * 只能在主线程使用。
+ */
+final class WidgetBatch {
+
+    private static final int FLAG_LAYOUT = 0x01;
+
+    // 整体重绘
+    private static final int FLAG_DRAW = 0x01 << 1;
+
+    // 局部重绘，范围见 dirtyLeft 等
+    private static final int FLAG_DRAW_RECT = 0x01 << 2;
+
+    private final View view;
+
+    private int depth = 0;
+
+    private int pending = 0;
+
+    private int dirtyLeft;
+
+    private int dirtyTop;
+
+    private int dirtyRight;
+
+    private int dirtyBottom;
+
+    WidgetBatch(View view) {
+        this.view = view;
+    }
+
+    void begin() {
+        depth++;
+    }
+
+    void end() {
+        if (depth == 0) {
+            throw new IllegalStateException("endBatch() called without a matching beginBatch()");
+        }
+        depth--;
+        if (depth == 0) {
+            flush();
+        }
+    }
+
+    boolean isBatching() {
+        return depth > 0;
+    }
+
+    void requestLayout() {
+        if (depth > 0) {
+            pending |= FLAG_LAYOUT;
+            return;
+        }
+        view.requestLayout();
+    }
+
+    void invalidate() {
+        if (depth > 0) {
+            pending |= FLAG_DRAW;
+            pending &= ~FLAG_DRAW_RECT;
+            return;
+        }
+        view.invalidate();
+    }
+
+    void invalidate(int left, int top, int right, int bottom) {
+        if (depth == 0) {
+            view.invalidate(left, top, right, bottom);
+            return;
+        }
+        if ((pending & FLAG_DRAW) != 0) {
+            return;
+        }
+        if ((pending & FLAG_DRAW_RECT) == 0) {
+            dirtyLeft = left;
+            dirtyTop = top;
+            dirtyRight = right;
+            dirtyBottom = bottom;
+            pending |= FLAG_DRAW_RECT;
+        } else {
+            dirtyLeft = Math.min(dirtyLeft, left);
+            dirtyTop = Math.min(dirtyTop, top);
+            dirtyRight = Math.max(dirtyRight, right);
+            dirtyBottom = Math.max(dirtyBottom, bottom);
+        }
+    }
+
+    /**
+     * 执行记录的 requestLayout、invalidate。
+     */
+    private void flush() {
+        int flags = pending;
+        pending = 0;
+        if ((flags & FLAG_LAYOUT) != 0) {
+            view.requestLayout();
+        }
+        if ((flags & FLAG_DRAW) != 0) {
+            view.invalidate();
+        } else if ((flags & FLAG_DRAW_RECT) != 0) {
+            view.invalidate(dirtyLeft, dirtyTop, dirtyRight, dirtyBottom);
+        }
+    }
+
+}
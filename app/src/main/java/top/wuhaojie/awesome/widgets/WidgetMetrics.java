@@ -0,0 +1,249 @@
+package top.wuhaojie.awesome.widgets;
+
+import androidx.annotation.NonNull;
+import androidx.core.os.TraceCompat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 控件性能埋点。
+ * <p>
+ * 开启后在各控件的 measure、draw 以及 TipView 的 show 前后添加 systrace 区段，
+ * 并按控件类型、阶段记录耗时直方图（无锁，可在任意线程读取）。
+ * 关闭时每次埋点只有一次 volatile 读取。
+ * <pre>
+ * WidgetMetrics.setEnabled(true);
+ * ...
+ * Log.d(TAG, WidgetMetrics.snapshot().toString());
+ * </pre>
+ */
+public final class WidgetMetrics {
+
+    /**
+     * 控件类型
+     */
+    public static final int WIDGET_TAG_VIEW = 0;
+    public static final int WIDGET_TIP_VIEW = 1;
+    public static final int WIDGET_RADIUS_BUTTON = 2;
+    public static final int WIDGET_PAGER_INDICATOR_VIEW = 3;
+    public static final int WIDGET_TRIANGLE_BADGE_VIEW = 4;
+    public static final int WIDGET_RADIUS_SEGMENT_VIEW = 5;
+
+    /**
+     * 阶段
+     */
+    public static final int PHASE_MEASURE = 0;
+    public static final int PHASE_DRAW = 1;
+    public static final int PHASE_SHOW = 2;
+
+    private static final String[] WIDGET_NAMES = {
+            "TagView", "TipView", "RadiusButton", "PagerIndicatorView", "TriangleBadgeView", "RadiusSegmentView"
+    };
+
+    private static final String[] PHASE_NAMES = {
+            "measure", "draw", "show"
+    };
+
+    /**
+     * 直方图桶数，第 i 个桶记录 [2^(i-1), 2^i) 纳秒，最后一个桶记录更长的耗时
+     */
+    private static final int BUCKET_COUNT = 40;
+
+    private static final String[][] SECTION_NAMES = new String[WIDGET_NAMES.length][PHASE_NAMES.length];
+
+    private static final Histogram[][] HISTOGRAMS = new Histogram[WIDGET_NAMES.length][PHASE_NAMES.length];
+
+    static {
+        for (int widget = 0; widget < WIDGET_NAMES.length; widget++) {
+            for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                SECTION_NAMES[widget][phase] = WIDGET_NAMES[widget] + "#" + PHASE_NAMES[phase];
+                HISTOGRAMS[widget][phase] = new Histogram();
+            }
+        }
+    }
+
+    private static volatile boolean enabled = false;
+
+    private WidgetMetrics() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        WidgetMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开始计时。
+     *
+     * @return 开始时间，未开启时返回 0
+     */
+    static long begin(int widget, int phase) {
+        if (!enabled) {
+            return 0;
+        }
+        TraceCompat.beginSection(SECTION_NAMES[widget][phase]);
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束计时，与 {@link #begin(int, int)} 成对调用。
+     */
+    static void end(int widget, int phase, long start) {
+        if (start == 0) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        TraceCompat.endSection();
+        HISTOGRAMS[widget][phase].record(duration);
+    }
+
+    /**
+     * 清空已记录的数据。
+     */
+    public static void reset() {
+        for (Histogram[] histograms : HISTOGRAMS) {
+            for (Histogram histogram : histograms) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * 当前数据的快照。
+     */
+    @NonNull
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    private static final class Histogram {
+
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        final AtomicLong count = new AtomicLong();
+
+        final AtomicLong total = new AtomicLong();
+
+        final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            int bucket = Math.min(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)), BUCKET_COUNT - 1);
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            long current;
+            while (nanos > (current = max.get())) {
+                if (max.compareAndSet(current, nanos)) {
+                    break;
+                }
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            total.set(0);
+            max.set(0);
+        }
+
+    }
+
+    /**
+     * 直方图快照，各项数据在创建时复制，之后不再变化。
+     */
+    public static final class Snapshot {
+
+        private final long[][] counts = new long[WIDGET_NAMES.length][PHASE_NAMES.length];
+
+        private final long[][] totals = new long[WIDGET_NAMES.length][PHASE_NAMES.length];
+
+        private final long[][] maxes = new long[WIDGET_NAMES.length][PHASE_NAMES.length];
+
+        private final long[][][] buckets = new long[WIDGET_NAMES.length][PHASE_NAMES.length][BUCKET_COUNT];
+
+        private Snapshot() {
+            for (int widget = 0; widget < WIDGET_NAMES.length; widget++) {
+                for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                    Histogram histogram = HISTOGRAMS[widget][phase];
+                    counts[widget][phase] = histogram.count.get();
+                    totals[widget][phase] = histogram.total.get();
+                    maxes[widget][phase] = histogram.max.get();
+                    for (int i = 0; i < BUCKET_COUNT; i++) {
+                        buckets[widget][phase][i] = histogram.buckets.get(i);
+                    }
+                }
+            }
+        }
+
+        public long getCount(int widget, int phase) {
+            return counts[widget][phase];
+        }
+
+        public long getTotalNanos(int widget, int phase) {
+            return totals[widget][phase];
+        }
+
+        public long getMaxNanos(int widget, int phase) {
+            return maxes[widget][phase];
+        }
+
+        /**
+         * 估算分位数，返回所在桶的上界。
+         *
+         * @param percentile 取值 (0, 100]
+         */
+        public long getPercentileNanos(int widget, int phase, double percentile) {
+            long[] histogram = buckets[widget][phase];
+            long total = 0;
+            for (long value : histogram) {
+                total += value;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += histogram[i];
+                if (seen >= target) {
+                    return Math.min(i == 0 ? 0 : 1L << i, maxes[widget][phase]);
+                }
+            }
+            return maxes[widget][phase];
+        }
+
+        /**
+         * 导出为文本，每行一项：控件#阶段 次数 平均 p50 p90 p99 最大（单位 us）。
+         */
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (int widget = 0; widget < WIDGET_NAMES.length; widget++) {
+                for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                    long count = counts[widget][phase];
+                    if (count == 0) {
+                        continue;
+                    }
+                    builder.append(SECTION_NAMES[widget][phase])
+                            .append(" count=").append(count)
+                            .append(" avg=").append(totals[widget][phase] / count / 1000)
+                            .append(" p50=").append(getPercentileNanos(widget, phase, 50) / 1000)
+                            .append(" p90=").append(getPercentileNanos(widget, phase, 90) / 1000)
+                            .append(" p99=").append(getPercentileNanos(widget, phase, 99) / 1000)
+                            .append(" max=").append(maxes[widget][phase] / 1000)
+                            .append('\n');
+                }
+            }
+            return builder.toString();
+        }
+
+    }
+
+}
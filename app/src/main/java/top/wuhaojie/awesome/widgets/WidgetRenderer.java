@@ -0,0 +1,363 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.DisplayMetrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import top.wuhaojie.awesome.widgets.geometry.TagGeometry;
+
+/**
+ * 离屏渲染，不创建 View，将标签条、斜角标签、圆角按钮绘制到指定的 Canvas 或 Bitmap 上，
+ * 用于分享卡片、通知等生成图片的场景。
+ * <p>
+ * 每个实例持有自己的 Paint、Canvas 等对象，可以在任意线程使用，但同一实例不要跨线程共享，
+ * 例如在线程池中每个任务创建一个，或配合 ThreadLocal 使用。批量渲染时复用同一实例即可。
+ * <pre>
+ * WidgetRenderer renderer = new WidgetRenderer(resources.getDisplayMetrics());
+ * for (List&lt;String&gt; tags : items) {
+ *     Bitmap bitmap = renderer.renderTags(tags, backgroundColor);
+ *     ...
+ * }
+ * </pre>
+ * 标签的测量和排版与 TagView 共用 {@link TagLayout.Builder}，也可以直接绘制
+ * 由 {@link TagView#newLayoutBuilder()} 得到的 TagLayout，结果与 TagView 一致。
+ */
+public final class WidgetRenderer {
+
+    // 样式序号以无符号 byte 存储，与 TagView 一致
+    private static final int MAX_STYLES = 256;
+
+    private final float density;
+
+    // 标签的测量和排版，默认样式与 TagView 一致
+    private final TagLayout.Builder layoutBuilder = new TagLayout.Builder();
+
+    // 单位 px
+    private int tagRadius = 12;
+
+    // 调色板，0 为默认样式，背景色由绘制时的参数指定
+    private int[] styleBackgrounds = new int[1];
+
+    private int[] styleTexts = {Color.WHITE};
+
+    private int styleCount = 1;
+
+    private final Paint tagBackgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint tagTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint pillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final Paint pillTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    // 斜角标签的绘制与 TriangleBadgeView 共用，仅在当前实例内使用
+    private final TriangleBadgeDrawable badge = new TriangleBadgeDrawable();
+
+    // 渲染到 Bitmap 时复用
+    private final Canvas bitmapCanvas = new Canvas();
+
+    private final RectF rect = new RectF();
+
+    private final RectF pillBounds = new RectF();
+
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+
+    /**
+     * @param metrics 屏幕参数，可通过 Resources.getDisplayMetrics() 获取，在主线程之外使用时请提前取得。
+     *                只在构造时读取 density、scaledDensity，之后的修改不影响当前实例
+     */
+    public WidgetRenderer(@NonNull DisplayMetrics metrics) {
+        this.density = metrics.density;
+
+        tagTextPaint.setTextAlign(Paint.Align.CENTER);
+
+        pillTextPaint.setTextAlign(Paint.Align.CENTER);
+        // 与 RadiusButton 一致为 16sp，scaledDensity 包含系统字体大小设置
+        pillTextPaint.setTextSize(16 * metrics.scaledDensity);
+        pillPaint.setStrokeWidth(dp2px(1));
+    }
+
+    /**
+     * @param textSize 单位 px
+     */
+    public void setTagTextSize(int textSize) {
+        layoutBuilder.textSize(textSize);
+    }
+
+    /**
+     * 设置标签的边距、间距和圆角，单位 px。
+     */
+    public void setTagMetrics(int paddingHorizontal, int paddingVertical, int space, int radius) {
+        layoutBuilder.tagPadding(paddingHorizontal, paddingVertical).tagSpace(space);
+        this.tagRadius = radius;
+    }
+
+    /**
+     * 行间距，单位 px，折行时使用。
+     */
+    public void setTagLineSpace(int lineSpace) {
+        layoutBuilder.lineSpace(lineSpace);
+    }
+
+    /**
+     * 可用宽度，单位 px，超出时折行。不大于 0 时不折行，默认不折行。
+     */
+    public void setTagMaxWidth(int maxWidth) {
+        layoutBuilder.maxWidth(maxWidth);
+    }
+
+    /**
+     * 是否批量测量文字，参见 {@link TagLayout.Builder#batchMeasure(boolean)}，需要与 TagView 的设置一致。默认关闭。
+     */
+    public void setTagBatchMeasure(boolean batchMeasure) {
+        layoutBuilder.batchMeasure(batchMeasure);
+    }
+
+    /**
+     * 添加一种标签样式，返回样式序号，与 {@link TagView#addStyle(int, int)} 对应。
+     * 默认样式的序号为 0，背景色由绘制时的参数指定，文字为白色；最多 256 种。
+     */
+    public int addTagStyle(int backgroundColor, int textColor) {
+        if (styleCount >= MAX_STYLES) {
+            throw new IllegalStateException("at most " + MAX_STYLES + " tag styles are supported");
+        }
+        if (styleCount == styleBackgrounds.length) {
+            styleBackgrounds = Arrays.copyOf(styleBackgrounds, styleCount * 2);
+            styleTexts = Arrays.copyOf(styleTexts, styleCount * 2);
+        }
+        styleBackgrounds[styleCount] = backgroundColor;
+        styleTexts[styleCount] = textColor;
+        return styleCount++;
+    }
+
+    /**
+     * 按当前设置测量、排版标签。
+     */
+    @NonNull
+    public TagLayout layoutTags(@NonNull List<String> tags) {
+        return layoutBuilder.build(tags);
+    }
+
+    /**
+     * 标签条的宽度，设置了可用宽度时为折行后最宽的一行。
+     */
+    public int measureTagsWidth(@NonNull List<String> tags) {
+        return layoutTags(tags).getWidth();
+    }
+
+    /**
+     * 标签条的高度，单行时为最高的标签高度。
+     */
+    public int measureTagsHeight(@NonNull List<String> tags) {
+        return layoutTags(tags).getHeight();
+    }
+
+    /**
+     * 在 (left, top) 处绘制标签条，样式与 TagView 一致。
+     */
+    public void drawTags(@NonNull Canvas canvas, @NonNull List<String> tags, float left, float top, int backgroundColor) {
+        drawTags(canvas, layoutTags(tags), null, left, top, backgroundColor);
+    }
+
+    /**
+     * 在 (left, top) 处绘制排版好的标签，文字大小、边距以 layout 为准。
+     *
+     * @param styles          各标签的样式序号，参见 {@link #addTagStyle(int, int)}，为 null 时都使用默认样式
+     * @param backgroundColor 默认样式的背景色
+     */
+    public void drawTags(@NonNull Canvas canvas, @NonNull TagLayout layout, @Nullable byte[] styles,
+                         float left, float top, int backgroundColor) {
+        int count = layout.getTagCount();
+        checkStyles(styles, count);
+        styleBackgrounds[0] = backgroundColor;
+
+        tagTextPaint.setTextSize(layout.textSize);
+        // 基准线距离
+        tagTextPaint.getFontMetrics(fontMetrics);
+        float distance = (fontMetrics.top + fontMetrics.bottom) / 2F;
+
+        List<String> tags = layout.getTags();
+        for (int i = 0; i < count; i++) {
+            int style = styles != null ? styles[i] & 0xFF : 0;
+            tagBackgroundPaint.setColor(styleBackgrounds[style]);
+            tagTextPaint.setColor(styleTexts[style]);
+
+            int widthText = layout.textWidths[i];
+            int heightText = layout.textHeights[i];
+            float tagLeft = left + layout.lefts[i];
+            float tagTop = top + layout.top(i);
+
+            rect.set(
+                    tagLeft,
+                    tagTop,
+                    tagLeft + TagGeometry.tagWidth(widthText, layout.paddingHorizontal),
+                    tagTop + TagGeometry.tagHeight(heightText, layout.paddingVertical)
+            );
+            canvas.drawRoundRect(rect, tagRadius, tagRadius, tagBackgroundPaint);
+
+            canvas.drawText(
+                    tags.get(i),
+                    tagLeft + widthText / 2F + layout.paddingHorizontal,
+                    tagTop + heightText / 2F + layout.paddingVertical - distance,
+                    tagTextPaint
+            );
+        }
+    }
+
+    /**
+     * 绘制到 target 的左上角，target 需要足够大，参见 {@link #measureTagsWidth(List)}。
+     */
+    public void renderTags(@NonNull Bitmap target, @NonNull List<String> tags, int backgroundColor) {
+        bitmapCanvas.setBitmap(target);
+        drawTags(bitmapCanvas, tags, 0, 0, backgroundColor);
+        bitmapCanvas.setBitmap(null);
+    }
+
+    /**
+     * 创建刚好容纳标签条的 Bitmap 并绘制，没有标签时返回 null。
+     */
+    @Nullable
+    public Bitmap renderTags(@NonNull List<String> tags, int backgroundColor) {
+        return renderTags(layoutTags(tags), null, backgroundColor);
+    }
+
+    /**
+     * 创建刚好容纳 layout 的 Bitmap 并绘制，没有标签时返回 null。
+     *
+     * @see #drawTags(Canvas, TagLayout, byte[], float, float, int)
+     */
+    @Nullable
+    public Bitmap renderTags(@NonNull TagLayout layout, @Nullable byte[] styles, int backgroundColor) {
+        int width = layout.getWidth();
+        int height = layout.getHeight();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmapCanvas.setBitmap(bitmap);
+        drawTags(bitmapCanvas, layout, styles, 0, 0, backgroundColor);
+        bitmapCanvas.setBitmap(null);
+        return bitmap;
+    }
+
+    /**
+     * 批量渲染，每项一张 Bitmap，复用同一组 Paint 和 Canvas。没有标签的项为 null。
+     */
+    @NonNull
+    public List<Bitmap> renderTagStrips(@NonNull List<? extends List<String>> items, int backgroundColor) {
+        List<Bitmap> bitmaps = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            bitmaps.add(renderTags(items.get(i), backgroundColor));
+        }
+        return bitmaps;
+    }
+
+    private void checkStyles(byte[] styles, int count) {
+        if (styles == null) {
+            return;
+        }
+        if (styles.length < count) {
+            throw new IllegalArgumentException("styles.length is less than the tag count");
+        }
+        for (int i = 0; i < count; i++) {
+            int style = styles[i] & 0xFF;
+            if (style >= styleCount) {
+                throw new IllegalArgumentException("unknown tag style: " + style);
+            }
+        }
+    }
+
+    /**
+     * 在 (left, top) 处绘制斜角标签，样式与 TriangleBadgeView 一致。
+     *
+     * @param width    角标边长，单位 px
+     * @param offset   彩带内侧到顶角的距离，单位 px
+     * @param textSize 单位 px
+     */
+    public void drawBadge(@NonNull Canvas canvas, @Nullable String text, float left, float top,
+                          int width, int offset, int textSize, int textColor, int badgeColor) {
+        badge.setText(text);
+        badge.setBadgeWidth(width);
+        badge.setBadgeOffset(offset);
+        badge.setTextSize(textSize);
+        badge.setTextColor(textColor);
+        badge.setBadgeColor(badgeColor);
+        badge.setBounds(0, 0, width, width);
+
+        int saveCount = canvas.save();
+        canvas.translate(left, top);
+        badge.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 绘制到 target 的左上角。
+     */
+    public void renderBadge(@NonNull Bitmap target, @Nullable String text,
+                            int width, int offset, int textSize, int textColor, int badgeColor) {
+        bitmapCanvas.setBitmap(target);
+        drawBadge(bitmapCanvas, text, 0, 0, width, offset, textSize, textColor, badgeColor);
+        bitmapCanvas.setBitmap(null);
+    }
+
+    /**
+     * 在 bounds 内绘制两端半圆的按钮，样式与 RadiusButton 一致。
+     *
+     * @param fill  true 为填充样式（白色文字），false 为描边样式（文字与描边同色）
+     * @param color 主题色
+     */
+    public void drawPill(@NonNull Canvas canvas, @NonNull RectF bounds, @Nullable String text, int color, boolean fill) {
+        float radius = bounds.height() / 2F;
+        if (fill) {
+            pillPaint.setStyle(Paint.Style.FILL);
+            pillPaint.setColor(color);
+            canvas.drawRoundRect(bounds, radius, radius, pillPaint);
+        } else {
+            // 描边在路径两侧各占一半，向内收缩避免被裁剪
+            float half = pillPaint.getStrokeWidth() / 2F;
+            rect.set(bounds.left + half, bounds.top + half, bounds.right - half, bounds.bottom - half);
+            pillPaint.setStyle(Paint.Style.STROKE);
+            pillPaint.setColor(color);
+            canvas.drawRoundRect(rect, radius - half, radius - half, pillPaint);
+        }
+
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        pillTextPaint.setColor(fill ? Color.WHITE : color);
+        float baseline = bounds.centerY() - (pillTextPaint.descent() + pillTextPaint.ascent()) / 2F;
+        canvas.drawText(text, bounds.centerX(), baseline, pillTextPaint);
+    }
+
+    /**
+     * 按钮铺满 target 绘制。
+     */
+    public void renderPill(@NonNull Bitmap target, @Nullable String text, int color, boolean fill) {
+        bitmapCanvas.setBitmap(target);
+        pillBounds.set(0, 0, target.getWidth(), target.getHeight());
+        drawPill(bitmapCanvas, pillBounds, text, color, fill);
+        bitmapCanvas.setBitmap(null);
+    }
+
+    /**
+     * @param textSize 按钮文字大小，单位 px，默认 16sp
+     */
+    public void setPillTextSize(float textSize) {
+        pillTextPaint.setTextSize(textSize);
+    }
+
+    private int dp2px(float dp) {
+        return (int) (dp * density + 0.5F);
+    }
+
+}
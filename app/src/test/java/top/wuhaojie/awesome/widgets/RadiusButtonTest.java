@@ -0,0 +1,134 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.app.Activity;
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.appcompat.widget.AppCompatTextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RadiusButtonTest {
+
+    // 构造过程中实际到达 View.requestLayout 的次数
+    private static int layoutRequests;
+
+    /**
+     * xml 中声明 android:enabled 时，父类构造过程中就会调用 setEnabled。
+     */
+    @Test
+    public void inflateDisabled() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(android.R.attr.enabled, "false")
+                .addAttribute(android.R.attr.text, "确定")
+                .build();
+
+        RadiusButton button = new RadiusButton(activity, attrs);
+
+        assertFalse(button.isEnabled());
+    }
+
+    /**
+     * 加载中键盘、无障碍服务触发的点击不回调，结束加载后恢复。
+     */
+    @Test
+    public void performClickIgnoredWhileLoading() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        RadiusButton button = new RadiusButton(activity);
+        final int[] clicks = new int[1];
+        button.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                clicks[0]++;
+            }
+        });
+
+        button.setLoading(true);
+        assertFalse(button.performClick());
+        assertEquals(0, clicks[0]);
+
+        button.setLoading(false);
+        assertTrue(button.performClick());
+        assertEquals(1, clicks[0]);
+    }
+
+    /**
+     * 构造阶段的属性设置合并为一次 requestLayout：与父类的构造过程相比，最多多出一次。
+     */
+    @Test
+    public void constructionRequestsLayoutAtMostOnce() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(android.R.attr.text, "确定")
+                .build();
+
+        layoutRequests = 0;
+        new CountingTextView(activity, attrs);
+        int superRequests = layoutRequests;
+
+        layoutRequests = 0;
+        new CountingButton(activity, attrs);
+        int requests = layoutRequests;
+
+        assertTrue("requestLayout: " + requests + " > " + superRequests + " + 1", requests <= superRequests + 1);
+    }
+
+    /**
+     * 只统计没有被暂存、实际到达 View 的 requestLayout。
+     */
+    private static void countLayoutRequest(ShadowView shadow) {
+        if (shadow.didRequestLayout()) {
+            layoutRequests++;
+        }
+    }
+
+    private static class CountingButton extends RadiusButton {
+
+        CountingButton(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        @Override
+        public void requestLayout() {
+            ShadowView shadow = Shadows.shadowOf(this);
+            shadow.setDidRequestLayout(false);
+            super.requestLayout();
+            countLayoutRequest(shadow);
+        }
+
+    }
+
+    private static class CountingTextView extends AppCompatTextView {
+
+        CountingTextView(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        @Override
+        public void requestLayout() {
+            ShadowView shadow = Shadows.shadowOf(this);
+            shadow.setDidRequestLayout(false);
+            super.requestLayout();
+            countLayoutRequest(shadow);
+        }
+
+    }
+
+}
@@ -0,0 +1,366 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.viewpager.widget.PagerAdapter;
+import androidx.viewpager.widget.ViewPager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 各控件常见操作的性能回归测试：每次绘制的内存分配、measure / layout 次数、inflate 次数，
+ * 超出 widget_budgets.properties 中记录的预算时失败。
+ * <p>
+ * 控件承诺的、与运行环境无关的结果直接断言，不依赖记录的预算：
+ * 修改标签样式、批量选择不触发 measure / layout，批量添加最多 measure 一次，
+ * TagView、PagerIndicatorView 以及动画过程中的绘制不分配内存。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class WidgetBudgetTest {
+
+    @Rule
+    public final TestRule budgets = WidgetProbe.budgetRule();
+
+    private ActivityController<Activity> controller;
+
+    private Activity activity;
+
+    private WidgetProbe.InflationCountingContext context;
+
+    private WidgetProbe.CountingFrameLayout host;
+
+    @Before
+    public void setUp() {
+        controller = Robolectric.buildActivity(Activity.class);
+        activity = controller.get();
+        activity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        controller.setup();
+
+        context = new WidgetProbe.InflationCountingContext(activity);
+        host = new WidgetProbe.CountingFrameLayout(context);
+        activity.setContentView(host);
+        idle();
+
+        WidgetMetrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        WidgetMetrics.setEnabled(false);
+        WidgetMetrics.reset();
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void tagViewRefresh() {
+        TagView tagView = new TagView(context);
+        attach(tagView);
+
+        begin();
+        tagView.refresh(tags(20));
+        idle();
+        checkPasses("tag.refresh", WidgetMetrics.WIDGET_TAG_VIEW);
+
+        assertNoAllocation("tag.refresh.draw.bytes", WidgetProbe.allocationsPerDraw(tagView));
+    }
+
+    @Test
+    public void tagViewAddTags() {
+        TagView tagView = new TagView(context);
+        attach(tagView);
+
+        begin();
+        for (String tag : tags(200)) {
+            tagView.addTag(tag);
+        }
+        idle();
+        checkPasses("tag.addTags", WidgetMetrics.WIDGET_TAG_VIEW);
+
+        assertNoAllocation("tag.addTags.draw.bytes", WidgetProbe.allocationsPerDraw(tagView));
+    }
+
+    @Test
+    public void tagViewBatchAddTags() {
+        final TagView tagView = new TagView(context);
+        attach(tagView);
+
+        begin();
+        tagView.edit(new Runnable() {
+            @Override
+            public void run() {
+                for (String tag : tags(200)) {
+                    tagView.addTag(tag);
+                }
+            }
+        });
+        idle();
+        long measures = measureCount(WidgetMetrics.WIDGET_TAG_VIEW);
+        assertTrue("tag.batchAddTags.measure: " + measures + " > 1", measures <= 1);
+        checkPasses("tag.batchAddTags", WidgetMetrics.WIDGET_TAG_VIEW);
+    }
+
+    @Test
+    public void tagViewSetTagStyle() {
+        TagView tagView = new TagView(context);
+        int hot = tagView.addStyle(0xFFFF5722, 0xFFFFFFFF);
+        int cold = tagView.addStyle(0xFF2196F3, 0xFFFFFFFF);
+        byte[] styles = new byte[20];
+        for (int i = 0; i < styles.length; i++) {
+            styles[i] = (byte) (i % 3);
+        }
+        tagView.refresh(tags(20), styles);
+        attach(tagView);
+
+        begin();
+        for (int i = 0; i < 20; i++) {
+            tagView.setTagStyle(i, i % 2 == 0 ? hot : cold);
+        }
+        idle();
+        assertNoLayoutPass("tag.setStyle", WidgetMetrics.WIDGET_TAG_VIEW);
+        checkPasses("tag.setStyle", WidgetMetrics.WIDGET_TAG_VIEW);
+
+        assertNoAllocation("tag.setStyle.draw.bytes", WidgetProbe.allocationsPerDraw(tagView));
+    }
+
+    @Test
+    public void tagViewBulkSelection() {
+        TagView tagView = new TagView(context);
+        tagView.setSelectionMode(TagView.SELECT_MULTIPLE);
+        tagView.refresh(tags(200));
+        attach(tagView);
+
+        begin();
+        tagView.selectAll();
+        tagView.invertSelection();
+        tagView.selectIf(new TagView.TagFilter() {
+            @Override
+            public boolean accept(int index, String tag) {
+                return index % 2 == 0;
+            }
+        });
+        idle();
+        assertEquals(100, tagView.getSelectedCount());
+        assertNoLayoutPass("tag.bulkSelection", WidgetMetrics.WIDGET_TAG_VIEW);
+        checkPasses("tag.bulkSelection", WidgetMetrics.WIDGET_TAG_VIEW);
+
+        assertNoAllocation("tag.bulkSelection.draw.bytes", WidgetProbe.allocationsPerDraw(tagView));
+    }
+
+    @Test
+    public void tagViewAnimatedChanges() {
+        TagView tagView = new TagView(context);
+        tagView.setAnimateChanges(true);
+        tagView.refresh(tags(20));
+        attach(tagView);
+
+        begin();
+        tagView.insertTag(0, "新标签");
+        tagView.removeTag(5);
+        // 动画过程中的每帧绘制
+        assertNoAllocation("tag.animatedChanges.draw.bytes", WidgetProbe.allocationsPerDraw(tagView));
+        idle();
+        assertEquals(20, tagView.getTagCount());
+        checkPasses("tag.animatedChanges", WidgetMetrics.WIDGET_TAG_VIEW);
+    }
+
+    @Test
+    public void radiusButtonPress() {
+        RadiusButton button = new RadiusButton(context);
+        button.setText("确定");
+        attach(button);
+
+        begin();
+        button.setPressed(true);
+        idle();
+        button.setPressed(false);
+        idle();
+        checkPasses("radiusButton.press", WidgetMetrics.WIDGET_RADIUS_BUTTON);
+
+        button.setPressed(true);
+        idle();
+        WidgetProbe.check("radiusButton.press.draw.bytes", WidgetProbe.allocationsPerDraw(button));
+    }
+
+    @Test
+    public void pagerIndicatorScroll() {
+        ViewPager viewPager = new ViewPager(context);
+        viewPager.setAdapter(new PageAdapter(10));
+        final PagerIndicatorView indicator = new PagerIndicatorView(context);
+        attach(viewPager);
+        attach(indicator);
+        indicator.bind(viewPager);
+        idle();
+
+        begin();
+        for (int position = 0; position < 9; position++) {
+            for (int step = 0; step < 10; step++) {
+                indicator.onPageScrolled(position, step / 10F, 0);
+            }
+        }
+        indicator.onPageSelected(9);
+        idle();
+        checkPasses("pagerIndicator.scroll", WidgetMetrics.WIDGET_PAGER_INDICATOR_VIEW);
+
+        assertNoAllocation("pagerIndicator.scroll.draw.bytes", WidgetProbe.allocationsPerRun(new Runnable() {
+
+            private final WidgetProbe.NoOpCanvas canvas = new WidgetProbe.NoOpCanvas();
+
+            private int frame;
+
+            @Override
+            public void run() {
+                frame = (frame + 1) % 90;
+                indicator.onPageScrolled(frame / 10, (frame % 10) / 10F, 0);
+                indicator.draw(canvas);
+            }
+
+        }));
+    }
+
+    @Test
+    public void triangleBadgeRefresh() {
+        TriangleBadgeView badgeView = new TriangleBadgeView(context);
+        attach(badgeView);
+
+        begin();
+        badgeView.setText("推荐");
+        badgeView.setBadgeColor(0xFFFF5722);
+        idle();
+        checkPasses("triangleBadge.refresh", WidgetMetrics.WIDGET_TRIANGLE_BADGE_VIEW);
+
+        WidgetProbe.check("triangleBadge.refresh.draw.bytes", WidgetProbe.allocationsPerDraw(badgeView));
+    }
+
+    @Test
+    public void tipViewShowAndDismiss() {
+        View anchor = new View(context);
+        host.addView(anchor, new FrameLayout.LayoutParams(100, 100));
+        idle();
+
+        TipView tipView = new TipView.Builder()
+                .with(context)
+                .content("这是一个小提示")
+                .on(activity.getWindow())
+                .build();
+
+        begin();
+        tipView.show(anchor);
+        idle();
+        assertTrue(tipView.isShowing());
+        WidgetProbe.check("tip.show.measure", WidgetMetrics.snapshot().getCount(WidgetMetrics.WIDGET_TIP_VIEW, WidgetMetrics.PHASE_MEASURE));
+        WidgetProbe.check("tip.show.inflate", context.inflationCount);
+
+        tipView.dismiss();
+        idle();
+        assertFalse(tipView.isShowing());
+        WidgetProbe.check("tip.dismiss.inflate", context.inflationCount);
+    }
+
+    private void attach(View view) {
+        host.addView(view, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        idle();
+    }
+
+    /**
+     * 开始统计一次操作。
+     */
+    private void begin() {
+        WidgetMetrics.reset();
+        host.resetCounts();
+        context.inflationCount = 0;
+    }
+
+    private void checkPasses(String operation, int widget) {
+        WidgetProbe.check(operation + ".measure", measureCount(widget));
+        WidgetProbe.check(operation + ".layout", host.layoutCount);
+        WidgetProbe.check(operation + ".inflate", context.inflationCount);
+    }
+
+    private static long measureCount(int widget) {
+        return WidgetMetrics.snapshot().getCount(widget, WidgetMetrics.PHASE_MEASURE);
+    }
+
+    /**
+     * 控件和容器都没有重新 measure、layout，即操作中没有 requestLayout。
+     */
+    private void assertNoLayoutPass(String operation, int widget) {
+        assertEquals(operation + ".measure", 0, measureCount(widget));
+        assertEquals(operation + ".host.measure", 0, host.measureCount);
+        assertEquals(operation + ".layout", 0, host.layoutCount);
+    }
+
+    private static void assertNoAllocation(String key, long bytes) {
+        assertEquals(key, 0, bytes);
+    }
+
+    /**
+     * 执行主线程上已到期和延迟的任务，包括 invalidate、requestLayout 之后的下一次遍历。
+     */
+    private static void idle() {
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    private static List<String> tags(int count) {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tags.add("标签" + i);
+        }
+        return tags;
+    }
+
+    private static class PageAdapter extends PagerAdapter {
+
+        private final int count;
+
+        PageAdapter(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public boolean isViewFromObject(@NonNull View view, @NonNull Object object) {
+            return view == object;
+        }
+
+        @NonNull
+        @Override
+        public Object instantiateItem(@NonNull ViewGroup container, int position) {
+            View view = new View(container.getContext());
+            container.addView(view);
+            return view;
+        }
+
+        @Override
+        public void destroyItem(@NonNull ViewGroup container, int position, @NonNull Object object) {
+            container.removeView((View) object);
+        }
+
+    }
+
+}
@@ -0,0 +1,460 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Assume;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 回归测试用的计数工具：每次绘制的内存分配、measure / layout 次数、inflate 次数，
+ * 以及 widget_budgets.properties 中记录的预算。
+ */
+final class WidgetProbe {
+
+    /**
+     * 以 -DwidgetBudgets.record=true 运行时只记录实际值，不做检查，
+     * 结果写入 build/reports/widget-budgets.properties，确认后覆盖 src/test/resources 中的预算文件。
+     */
+    private static final boolean RECORD = Boolean.getBoolean("widgetBudgets.record");
+
+    private static final String BUDGETS = "/widget_budgets.properties";
+
+    private static final File RECORD_FILE = new File("build/reports/widget-budgets.properties");
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int WARM_UP = 20;
+
+    private static final int RUNS = 101;
+
+    private static Properties budgets;
+
+    private static final Properties recorded = new Properties();
+
+    // 当前测试中还没有记录预算的项
+    private static final List<String> unrecorded = new ArrayList<>();
+
+    private WidgetProbe() {
+    }
+
+    /**
+     * 检查实际值是否超出预算。
+     * <p>
+     * 预算只来自实际记录的结果。还没有记录的项先记下，测试中其余的检查照常进行，
+     * 测试通过后由 {@link #budgetRule()} 将测试标记为跳过，
+     * 以 -DwidgetBudgets.record=true 运行一次并提交结果后生效。
+     */
+    static void check(String key, long actual) {
+        if (RECORD) {
+            record(key, actual);
+            return;
+        }
+        String value = budgets().getProperty(key);
+        if (value == null) {
+            unrecorded.add(key + "=" + actual);
+            return;
+        }
+        long budget = Long.parseLong(value.trim());
+        if (actual > budget) {
+            throw new AssertionError(key + " is over budget: " + actual + " > " + budget);
+        }
+    }
+
+    /**
+     * 测试本身通过、但有未记录预算的项时，将测试标记为跳过。失败的测试照常报告失败。
+     */
+    static TestRule budgetRule() {
+        return new TestRule() {
+            @Override
+            public Statement apply(final Statement base, Description description) {
+                return new Statement() {
+                    @Override
+                    public void evaluate() throws Throwable {
+                        unrecorded.clear();
+                        base.evaluate();
+                        Assume.assumeTrue("widget budgets not recorded yet: " + unrecorded, unrecorded.isEmpty());
+                    }
+                };
+            }
+        };
+    }
+
+    private static synchronized Properties budgets() {
+        if (budgets == null) {
+            budgets = new Properties();
+            InputStream in = WidgetProbe.class.getResourceAsStream(BUDGETS);
+            if (in == null) {
+                throw new IllegalStateException("missing " + BUDGETS);
+            }
+            try {
+                budgets.load(in);
+                in.close();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return budgets;
+    }
+
+    private static synchronized void record(String key, long actual) {
+        recorded.setProperty(key, String.valueOf(actual));
+        RECORD_FILE.getParentFile().mkdirs();
+        try {
+            OutputStream out = new FileOutputStream(RECORD_FILE);
+            recorded.store(out, "recorded widget budgets");
+            out.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 当前线程累计分配的字节数。
+     */
+    private static long allocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 单次执行的内存分配字节数，取多次执行的中位数，排除首次加载、偶发扩容等干扰。
+     */
+    static long allocationsPerRun(Runnable action) {
+        long overhead = medianAllocation(EMPTY);
+        return Math.max(medianAllocation(action) - overhead, 0);
+    }
+
+    private static long medianAllocation(Runnable action) {
+        for (int i = 0; i < WARM_UP; i++) {
+            action.run();
+        }
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long before = allocatedBytes();
+            action.run();
+            samples[i] = allocatedBytes() - before;
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+
+    private static final Runnable EMPTY = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    /**
+     * 绘制一次 View，返回分配的字节数。
+     */
+    static long allocationsPerDraw(final View view) {
+        final Canvas canvas = new NoOpCanvas();
+        return allocationsPerRun(new Runnable() {
+            @Override
+            public void run() {
+                view.draw(canvas);
+            }
+        });
+    }
+
+    /**
+     * 统计 measure、layout 次数的容器。
+     */
+    static class CountingFrameLayout extends FrameLayout {
+
+        int measureCount = 0;
+
+        int layoutCount = 0;
+
+        CountingFrameLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            layoutCount++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+
+        void resetCounts() {
+            measureCount = 0;
+            layoutCount = 0;
+        }
+
+    }
+
+    /**
+     * 统计 inflate 出的 View 数量的 Context，控件通过 LayoutInflater.from(context) 获取的都是计数的 LayoutInflater。
+     */
+    static class InflationCountingContext extends ContextWrapper {
+
+        int inflationCount = 0;
+
+        private LayoutInflater inflater;
+
+        InflationCountingContext(Context base) {
+            super(base);
+        }
+
+        @Override
+        public Object getSystemService(String name) {
+            if (LAYOUT_INFLATER_SERVICE.equals(name)) {
+                if (inflater == null) {
+                    inflater = LayoutInflater.from(getBaseContext()).cloneInContext(this);
+                    inflater.setFactory2(new LayoutInflater.Factory2() {
+                        @Override
+                        public View onCreateView(View parent, String name, Context context, AttributeSet attrs) {
+                            inflationCount++;
+                            return null;
+                        }
+
+                        @Override
+                        public View onCreateView(String name, Context context, AttributeSet attrs) {
+                            inflationCount++;
+                            return null;
+                        }
+                    });
+                }
+                return inflater;
+            }
+            return super.getSystemService(name);
+        }
+
+    }
+
+    /**
+     * 不做任何事的 Canvas，绘制过程中的内存分配只来自控件本身。
+     */
+    static class NoOpCanvas extends Canvas {
+
+        private int saveCount = 1;
+
+        @Override
+        public boolean isHardwareAccelerated() {
+            return false;
+        }
+
+        @Override
+        public int getWidth() {
+            return 1080;
+        }
+
+        @Override
+        public int getHeight() {
+            return 1920;
+        }
+
+        @Override
+        public int save() {
+            return saveCount++;
+        }
+
+        @Override
+        public int saveLayer(RectF bounds, Paint paint) {
+            return saveCount++;
+        }
+
+        @Override
+        public int saveLayer(float left, float top, float right, float bottom, Paint paint) {
+            return saveCount++;
+        }
+
+        @Override
+        public int saveLayerAlpha(RectF bounds, int alpha) {
+            return saveCount++;
+        }
+
+        @Override
+        public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha) {
+            return saveCount++;
+        }
+
+        @Override
+        public void restore() {
+            saveCount--;
+        }
+
+        @Override
+        public int getSaveCount() {
+            return saveCount;
+        }
+
+        @Override
+        public void restoreToCount(int saveCount) {
+            this.saveCount = saveCount;
+        }
+
+        @Override
+        public void translate(float dx, float dy) {
+        }
+
+        @Override
+        public void scale(float sx, float sy) {
+        }
+
+        @Override
+        public void rotate(float degrees) {
+        }
+
+        @Override
+        public boolean clipRect(Rect rect) {
+            return true;
+        }
+
+        @Override
+        public boolean clipRect(RectF rect) {
+            return true;
+        }
+
+        @Override
+        public boolean clipRect(int left, int top, int right, int bottom) {
+            return true;
+        }
+
+        @Override
+        public boolean clipRect(float left, float top, float right, float bottom) {
+            return true;
+        }
+
+        @Override
+        public boolean clipPath(Path path) {
+            return true;
+        }
+
+        @Override
+        public boolean getClipBounds(Rect bounds) {
+            bounds.set(0, 0, getWidth(), getHeight());
+            return true;
+        }
+
+        @Override
+        public boolean quickReject(RectF rect, EdgeType type) {
+            return false;
+        }
+
+        @Override
+        public boolean quickReject(float left, float top, float right, float bottom, EdgeType type) {
+            return false;
+        }
+
+        @Override
+        public void drawColor(int color) {
+        }
+
+        @Override
+        public void drawPaint(Paint paint) {
+        }
+
+        @Override
+        public void drawPath(Path path, Paint paint) {
+        }
+
+        @Override
+        public void drawRect(RectF rect, Paint paint) {
+        }
+
+        @Override
+        public void drawRect(Rect r, Paint paint) {
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        }
+
+        @Override
+        public void drawRoundRect(float left, float top, float right, float bottom, float rx, float ry, Paint paint) {
+        }
+
+        @Override
+        public void drawOval(RectF oval, Paint paint) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        }
+
+        @Override
+        public void drawLines(float[] pts, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawTextRun(char[] text, int index, int count, int contextIndex, int contextCount, float x, float y, boolean isRtl, Paint paint) {
+        }
+
+        @Override
+        public void drawTextRun(CharSequence text, int start, int end, int contextStart, int contextEnd, float x, float y, boolean isRtl, Paint paint) {
+        }
+
+    }
+
+}
@@ -0,0 +1,140 @@
+package top.wuhaojie.awesome.widgets;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.util.DisplayMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 离屏渲染在后台线程使用，生成的 Bitmap 与测量结果一致。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class WidgetRendererTest {
+
+    private Activity activity;
+
+    private DisplayMetrics metrics;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        metrics = activity.getResources().getDisplayMetrics();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void renderTagStripsOnExecutor() throws Exception {
+        final List<List<String>> items = new ArrayList<>();
+        items.add(Arrays.asList("推荐", "新品", "包邮"));
+        items.add(Arrays.asList("限时折扣"));
+        items.add(new ArrayList<String>());
+
+        List<Bitmap> bitmaps = executor.submit(new Callable<List<Bitmap>>() {
+            @Override
+            public List<Bitmap> call() {
+                return new WidgetRenderer(metrics).renderTagStrips(items, 0xFFFF5722);
+            }
+        }).get();
+
+        WidgetRenderer renderer = new WidgetRenderer(metrics);
+        assertEquals(items.size(), bitmaps.size());
+        for (int i = 0; i < items.size() - 1; i++) {
+            Bitmap bitmap = bitmaps.get(i);
+            assertNotNull(bitmap);
+            assertEquals(renderer.measureTagsWidth(items.get(i)), bitmap.getWidth());
+            assertEquals(renderer.measureTagsHeight(items.get(i)), bitmap.getHeight());
+        }
+        // 没有标签的项
+        assertNull(bitmaps.get(items.size() - 1));
+    }
+
+    /**
+     * 斜角标签和按钮绘制到调用方提供的 Bitmap，在后台线程执行不抛异常即可。
+     */
+    @Test
+    public void renderBadgeAndPillOnExecutor() throws Exception {
+        final Bitmap badge = Bitmap.createBitmap(120, 120, Bitmap.Config.ARGB_8888);
+        final Bitmap pill = Bitmap.createBitmap(300, 100, Bitmap.Config.ARGB_8888);
+
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                WidgetRenderer renderer = new WidgetRenderer(metrics);
+                renderer.renderBadge(badge, "推荐", 120, 60, 24, 0xFF000000, 0xFFFFBD00);
+                renderer.renderPill(pill, "确定", 0xFFFF5722, true);
+                renderer.renderPill(pill, "取消", 0xFFFF5722, false);
+                return null;
+            }
+        }).get();
+    }
+
+    /**
+     * 默认样式与 TagView 一致，TagView 的排版可以直接渲染。
+     */
+    @Test
+    public void matchesTagViewLayout() {
+        List<String> tags = Arrays.asList("推荐", "新品", "包邮", "限时折扣", "满减");
+        TagView tagView = new TagView(activity);
+        TagLayout layout = tagView.newLayoutBuilder().build(tags);
+
+        WidgetRenderer renderer = new WidgetRenderer(metrics);
+        assertEquals(layout.getWidth(), renderer.measureTagsWidth(tags));
+        assertEquals(layout.getHeight(), renderer.measureTagsHeight(tags));
+
+        int style = renderer.addTagStyle(0xFF2196F3, 0xFFFFFFFF);
+        byte[] styles = {0, (byte) style, 0, (byte) style, 0};
+        Bitmap bitmap = renderer.renderTags(layout, styles, 0xFFFF5722);
+        assertNotNull(bitmap);
+        assertEquals(layout.getWidth(), bitmap.getWidth());
+        assertEquals(layout.getHeight(), bitmap.getHeight());
+    }
+
+    @Test
+    public void wrapsTagsAtMaxWidth() {
+        List<String> tags = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tags.add("标签" + i);
+        }
+        WidgetRenderer renderer = new WidgetRenderer(metrics);
+        renderer.setTagMaxWidth(600);
+
+        TagLayout layout = renderer.layoutTags(tags);
+        assertTrue(layout.getLineCount() > 1);
+        assertTrue(layout.getWidth() <= 600);
+
+        Bitmap bitmap = renderer.renderTags(tags, 0xFFFF5722);
+        assertNotNull(bitmap);
+        assertEquals(layout.getWidth(), bitmap.getWidth());
+        assertEquals(layout.getHeight(), bitmap.getHeight());
+    }
+
+}
@@ -0,0 +1,43 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指示器：一帧内窗口模式圆点位置与半径的计算，耗时应与页数无关。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IndicatorGeometryBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int count;
+
+    @Param({"7"})
+    public int maxVisible;
+
+    private float percent = 0;
+
+    @Benchmark
+    public void windowFrame(Blackhole blackhole) {
+        percent = percent >= 0.99F ? 0 : percent + 0.01F;
+        int index = count / 2;
+        float windowStart = IndicatorGeometry.windowStart(index, percent, count, maxVisible);
+        int first = Math.max((int) windowStart - 1, 0);
+        int last = Math.min((int) windowStart + maxVisible, count - 1);
+        for (int i = first; i <= last; i++) {
+            blackhole.consume(IndicatorGeometry.windowDotX(100, i, windowStart, 12, 10));
+            blackhole.consume(IndicatorGeometry.windowDotRadius(i, windowStart, count, maxVisible, 12));
+        }
+    }
+
+}
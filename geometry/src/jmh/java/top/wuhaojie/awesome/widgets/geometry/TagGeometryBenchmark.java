@@ -0,0 +1,62 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标签排列：10 ~ 100k 个标签的宽度计算、位置计算与折行。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TagGeometryBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int count;
+
+    private int[] textWidths;
+
+    private float[] lefts;
+
+    private int[] lines;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        textWidths = new int[count];
+        for (int i = 0; i < count; i++) {
+            textWidths[i] = 40 + random.nextInt(300);
+        }
+        lefts = new float[count];
+        lines = new int[count];
+    }
+
+    @Benchmark
+    public int contentWidth() {
+        return TagGeometry.contentWidth(textWidths, count, 25, 40);
+    }
+
+    @Benchmark
+    public float[] layout() {
+        TagGeometry.layout(textWidths, count, 25, 40, 0, lefts);
+        return lefts;
+    }
+
+    /**
+     * 可用宽度 1000px，平均每行约 3 个标签。
+     */
+    @Benchmark
+    public int breakLines() {
+        return TagGeometry.breakLines(textWidths, count, 25, 40, 1000, lefts, lines);
+    }
+
+}
@@ -0,0 +1,67 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 气泡定位：不同窗口尺寸下，锚点分布在整个窗口内（含贴边）时的计算耗时。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TipGeometryBenchmark {
+
+    private static final int ANCHORS = 1024;
+
+    @Param({"720x1280", "1080x1920", "1440x3040", "600x400"})
+    public String window;
+
+    @Param({"6", "5", "1", "4"})
+    public int gravity;
+
+    private TipGeometry.WindowDesc windowDesc;
+
+    private final TipGeometry.ArrowDesc arrow = new TipGeometry.ArrowDesc(21, 9);
+
+    private final TipGeometry.ContentViewDesc content = new TipGeometry.ContentViewDesc(420, 120, 15, 15, 30, 30);
+
+    private final TipGeometry.AnchorDesc[] anchors = new TipGeometry.AnchorDesc[ANCHORS];
+
+    private final TipGeometry.PopupPoint out = new TipGeometry.PopupPoint();
+
+    @Setup
+    public void setup() {
+        String[] size = window.split("x");
+        windowDesc = new TipGeometry.WindowDesc(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+
+        Random random = new Random(42);
+        for (int i = 0; i < ANCHORS; i++) {
+            anchors[i] = new TipGeometry.AnchorDesc(
+                    random.nextInt(windowDesc.width),
+                    random.nextInt(windowDesc.height),
+                    20 + random.nextInt(200),
+                    20 + random.nextInt(100)
+            );
+        }
+    }
+
+    @Benchmark
+    public void place(Blackhole blackhole) {
+        for (TipGeometry.AnchorDesc anchor : anchors) {
+            int resolved = TipGeometry.prepareGravity(gravity, windowDesc, anchor);
+            TipGeometry.process(resolved, content, arrow, windowDesc, anchor, out);
+            blackhole.consume(out.locationX + out.locationY + out.arrowX);
+        }
+    }
+
+}
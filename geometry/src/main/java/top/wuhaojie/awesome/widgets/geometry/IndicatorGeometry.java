@@ -0,0 +1,77 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+/**
+ * PagerIndicatorView 圆点位置计算。
+ */
+public final class IndicatorGeometry {
+
+    private IndicatorGeometry() {
+    }
+
+    /**
+     * 相邻圆点中心间距
+     */
+    public static int step(int radius, int space) {
+        return 2 * radius + space;
+    }
+
+    /**
+     * 内容宽度，包含 View 的左右 padding。
+     *
+     * @param visible 展示的圆点数量
+     */
+    public static int contentWidth(int visible, int radius, int space, int paddingLeft, int paddingRight) {
+        return visible * 2 * radius + (visible - 1) * space + paddingLeft + paddingRight;
+    }
+
+    /**
+     * 第一个圆点的中心 x 坐标，内容在 View 中水平居中。
+     */
+    public static float originX(int viewWidth, int contentWidth, int radius, int paddingLeft) {
+        int startX = viewWidth / 2 - contentWidth / 2;
+        return radius + paddingLeft + startX;
+    }
+
+    /**
+     * 计算各圆点中心 x 坐标。
+     *
+     * @param outCenters 输出，长度不小于 count
+     */
+    public static void centers(float originX, int count, int radius, int space, float[] outCenters) {
+        int step = step(radius, space);
+        for (int i = 0; i < count; i++) {
+            outCenters[i] = originX + i * step;
+        }
+    }
+
+    /**
+     * 窗口模式下窗口起始位置，让当前页尽量处于窗口中央。
+     */
+    public static float windowStart(int index, float percent, int count, int maxVisible) {
+        float start = index + percent - (maxVisible - 1) / 2F;
+        return Math.max(0, Math.min(start, count - maxVisible));
+    }
+
+    /**
+     * 窗口模式下圆点中心 x 坐标。
+     */
+    public static float windowDotX(float originX, int position, float windowStart, int radius, int space) {
+        return originX + (position - windowStart) * step(radius, space);
+    }
+
+    /**
+     * 窗口模式下圆点半径：窗口两端、且外侧还有圆点时逐渐缩小，完全滑出窗口时半径为 0。
+     */
+    public static float windowDotRadius(int position, float windowStart, int count, int maxVisible, float radius) {
+        float slot = position - windowStart;
+        float edge = Math.min(
+                position > 0 ? slot : Float.MAX_VALUE,
+                position < count - 1 ? maxVisible - 1 - slot : Float.MAX_VALUE
+        );
+        if (edge >= 1) {
+            return radius;
+        }
+        return radius * Math.max(edge + 1, 0) / 2F;
+    }
+
+}
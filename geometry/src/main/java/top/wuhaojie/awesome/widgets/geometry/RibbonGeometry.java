@@ -0,0 +1,54 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+/**
+ * 斜角标签彩带计算。
+ * <p>
+ * 角标为 width x width 的正方形，彩带位于右上角，外侧为对角线，内侧距顶角 offset。
+ */
+public final class RibbonGeometry {
+
+    private static final double SQRT_2 = Math.sqrt(2);
+
+    private RibbonGeometry() {
+    }
+
+    /**
+     * 等腰直角三角形斜边为 longLen 时，直角顶点到斜边的距离。
+     */
+    public static float equalSideLength(int longLen) {
+        return (float) (SQRT_2 * longLen / 2.0);
+    }
+
+    /**
+     * 颜色彩带高度
+     */
+    public static float bandHeight(int width, int offset) {
+        return equalSideLength(width) - equalSideLength(offset);
+    }
+
+    /**
+     * 旋转 45 度后文字左侧位置
+     */
+    public static float textX(int width, int textWidth) {
+        return (float) ((width - textWidth) / 2.0);
+    }
+
+    /**
+     * 旋转 45 度后彩带上边缘位置
+     */
+    public static float bandTop(int width, int offset) {
+        return (float) (width / 2.0 - bandHeight(width, offset) / 2.0);
+    }
+
+    /**
+     * 文字是否能放进彩带：文字高度不超过彩带高度，且文字靠近直角一侧的边不超出彩带。
+     * <p>
+     * 彩带中线到直角的距离为 d，与中线平行、距直角 x 的弦长为 2x，
+     * 文字上边缘距直角 d - h / 2，可用长度为 2d - h。
+     */
+    public static boolean fits(int width, int offset, int textWidth, int textHeight) {
+        float middleDistance = (equalSideLength(width) + equalSideLength(offset)) / 2;
+        return textHeight <= bandHeight(width, offset) && textWidth <= 2 * middleDistance - textHeight;
+    }
+
+}
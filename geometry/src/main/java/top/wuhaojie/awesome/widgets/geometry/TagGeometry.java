@@ -0,0 +1,91 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+/**
+ * TagView 标签排列计算，文字尺寸由调用方测量后传入。
+ */
+public final class TagGeometry {
+
+    private TagGeometry() {
+    }
+
+    /**
+     * 标签宽度 = 文字宽度 + 两侧水平边距
+     */
+    public static int tagWidth(int textWidth, int paddingHorizontal) {
+        return textWidth + 2 * paddingHorizontal;
+    }
+
+    /**
+     * 标签高度 = 文字高度 + 上下垂直边距
+     */
+    public static int tagHeight(int textHeight, int paddingVertical) {
+        return textHeight + 2 * paddingVertical;
+    }
+
+    /**
+     * 单行排列时的内容宽度，不含 View 的 padding。
+     *
+     * @param textWidths 各标签文字宽度
+     * @param count      标签数量
+     */
+    public static int contentWidth(int[] textWidths, int count, int paddingHorizontal, int space) {
+        if (count <= 0) {
+            return 0;
+        }
+        long width = 0;
+        for (int i = 0; i < count; i++) {
+            width += tagWidth(textWidths[i], paddingHorizontal) + space;
+        }
+        return (int) Math.min(width - space, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 单行排列时各标签的左侧位置。
+     *
+     * @param start    第一个标签的左侧位置
+     * @param outLefts 输出，长度不小于 count
+     */
+    public static void layout(int[] textWidths, int count, int paddingHorizontal, int space, float start, float[] outLefts) {
+        float left = start;
+        for (int i = 0; i < count; i++) {
+            outLefts[i] = left;
+            left += tagWidth(textWidths[i], paddingHorizontal) + space;
+        }
+    }
+
+    /**
+     * 按可用宽度折行排列，从左到右依次放置，放不下时换行，单个标签超过可用宽度时独占一行。
+     *
+     * @param maxWidth 可用宽度，不大于 0 时不折行
+     * @param outLefts 输出，各标签相对内容区域的左侧位置，长度不小于 count
+     * @param outLines 输出，各标签所在行，从 0 开始，长度不小于 count
+     * @return 行数，没有标签时为 0
+     */
+    public static int breakLines(int[] textWidths, int count, int paddingHorizontal, int space, int maxWidth,
+                                 float[] outLefts, int[] outLines) {
+        int line = 0;
+        long left = 0;
+        for (int i = 0; i < count; i++) {
+            int width = tagWidth(textWidths[i], paddingHorizontal);
+            if (maxWidth > 0 && left > 0 && left + width > maxWidth) {
+                line++;
+                left = 0;
+            }
+            outLefts[i] = left;
+            outLines[i] = line;
+            left += width + space;
+        }
+        return count > 0 ? line + 1 : 0;
+    }
+
+    /**
+     * 多行排列时的内容高度，不含 View 的 padding。
+     */
+    public static int linesHeight(int lineCount, int lineHeight, int lineSpace) {
+        if (lineCount <= 0) {
+            return 0;
+        }
+        return lineCount * lineHeight + (lineCount - 1) * lineSpace;
+    }
+
+}
@@ -0,0 +1,323 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+/**
+ * TipView 气泡位置计算，不依赖 Android，可在 JVM 上测试和压测。
+ */
+public final class TipGeometry {
+
+    /**
+     * 展示方位，取值与 TipView.Gravity 一致
+     */
+    public static final int TOP = 1;
+    public static final int BOTTOM = 2;
+    public static final int LEFT = 3;
+    public static final int RIGHT = 4;
+    public static final int HORIZONTAL = 5;
+    public static final int VERTICAL = 6;
+
+    private static final GravityProcessor TOP_PROCESSOR = new GravityTopProcessor();
+
+    private static final GravityProcessor BOTTOM_PROCESSOR = new GravityBottomProcessor();
+
+    private static final GravityProcessor LEFT_PROCESSOR = new GravityLeftProcessor();
+
+    private static final GravityProcessor RIGHT_PROCESSOR = new GravityRightProcessor();
+
+    private TipGeometry() {
+    }
+
+
+    public static final class PopupPoint {
+
+        /**
+         * 箭头的位置
+         */
+        public int arrowX;
+
+        public int arrowY;
+
+        /**
+         * 视图的位置
+         */
+        public int locationX;
+
+        public int locationY;
+
+        /**
+         * 空间不足，气泡超出窗口
+         */
+        public boolean outOfBounds;
+
+    }
+
+    /**
+     * 锚点描述
+     */
+    public static final class AnchorDesc {
+
+        /**
+         * 中心点坐标 X
+         */
+        public int x;
+
+        /**
+         * 中心点坐标 Y
+         */
+        public int y;
+
+        /**
+         * 锚点宽度
+         */
+        public int width;
+
+        /**
+         * 锚点高度
+         */
+        public int height;
+
+
+        public AnchorDesc(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+    }
+
+    /**
+     * 父窗口描述
+     */
+    public static final class WindowDesc {
+
+        /**
+         * 宽度
+         */
+        public int width;
+
+        /**
+         * 高度
+         */
+        public int height;
+
+        public WindowDesc(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+    }
+
+    /**
+     * 箭头描述
+     */
+    public static final class ArrowDesc {
+
+        /**
+         * 宽度
+         */
+        public int width;
+
+        /**
+         * 高度
+         */
+        public int height;
+
+        public ArrowDesc(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+    }
+
+    public static final class ContentViewDesc {
+
+        public int width;
+
+        public int height;
+
+        public int paddingTop;
+
+        public int paddingBottom;
+
+        public int paddingLeft;
+
+        public int paddingRight;
+
+        public ContentViewDesc(int width, int height, int paddingTop, int paddingBottom, int paddingLeft, int paddingRight) {
+            this.width = width;
+            this.height = height;
+            this.paddingTop = paddingTop;
+            this.paddingBottom = paddingBottom;
+            this.paddingLeft = paddingLeft;
+            this.paddingRight = paddingRight;
+        }
+
+    }
+
+
+    /**
+     * 将 VERTICAL / HORIZONTAL 换算为具体方位。
+     */
+    public static int prepareGravity(int gravity, WindowDesc window, AnchorDesc anchor) {
+        if (gravity == VERTICAL) {
+            // 上方距离 < 下方距离 => 视图展示在下方
+            return anchor.y < window.height - anchor.y ? BOTTOM : TOP;
+        }
+        if (gravity == HORIZONTAL) {
+            // 左方距离 < 右方距离 => 视图展示在右方
+            return anchor.x < window.width - anchor.x ? RIGHT : LEFT;
+        }
+        return gravity;
+    }
+
+    /**
+     * 根据展示方位，计算箭头和气泡的坐标位置。
+     *
+     * @param gravity 具体方位，参见 {@link #prepareGravity(int, WindowDesc, AnchorDesc)}
+     */
+    public static PopupPoint process(int gravity, ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor) {
+        PopupPoint popupPoint = new PopupPoint();
+        process(gravity, contentView, arrow, window, anchor, popupPoint);
+        return popupPoint;
+    }
+
+    /**
+     * 同 {@link #process(int, ContentViewDesc, ArrowDesc, WindowDesc, AnchorDesc)}，结果写入 out。
+     */
+    public static void process(int gravity, ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor, PopupPoint out) {
+        out.arrowX = 0;
+        out.arrowY = 0;
+        out.outOfBounds = false;
+        findGravityProcessor(gravity).doProcess(contentView, arrow, window, anchor, out);
+    }
+
+    private static GravityProcessor findGravityProcessor(int gravity) {
+        switch (gravity) {
+            case TOP:
+                return TOP_PROCESSOR;
+            case BOTTOM:
+                return BOTTOM_PROCESSOR;
+            case LEFT:
+                return LEFT_PROCESSOR;
+            case RIGHT:
+                return RIGHT_PROCESSOR;
+            default:
+                return BOTTOM_PROCESSOR;
+        }
+    }
+
+
+    private abstract static class GravityProcessor {
+
+        abstract void doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor, PopupPoint out);
+
+    }
+
+
+    private static abstract class GravityTopBottomProcessor extends GravityProcessor {
+
+        @Override
+        void doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor, PopupPoint out) {
+
+            int arrowX;
+
+            // 处理箭头（垂直方向仅处理水平位置即可）
+            int leftSpace = anchor.x;
+            int rightSpace = window.width - anchor.x;
+
+            int minSpace = Math.min(leftSpace, rightSpace);
+            int contentViewHalfWidth = contentView.width / 2;
+
+            if (minSpace >= contentViewHalfWidth) {
+                // 空间足够，可以放中间
+                arrowX = contentViewHalfWidth - contentView.paddingLeft - arrow.width / 2;
+            } else {
+                // 空间不够
+                if (leftSpace < rightSpace) {
+                    // 在左边展示
+                    arrowX = anchor.x - contentView.paddingLeft - arrow.width / 2;
+                    // 左侧越界处理
+                    if (arrowX < 0) {
+                        arrowX = 0;
+                    }
+                } else {
+                    // 在右边展示
+                    int contentRightPart = rightSpace - contentView.paddingRight;
+                    int contentViewRealWidth = contentView.width - contentView.paddingLeft - contentView.paddingRight;
+                    arrowX = contentViewRealWidth - contentRightPart - arrow.width / 2;
+                    // 右侧越界处理
+                    if (arrowX > contentViewRealWidth - arrow.width) {
+                        arrowX = contentViewRealWidth - arrow.width;
+                    }
+                }
+            }
+
+            out.arrowX = arrowX;
+            out.arrowY = 0;
+
+            // 处理视图位置
+            location(contentView, anchor, out);
+        }
+
+
+        abstract void location(ContentViewDesc contentView, AnchorDesc anchor, PopupPoint out);
+
+    }
+
+    private static class GravityTopProcessor extends GravityTopBottomProcessor {
+
+        @Override
+        void location(ContentViewDesc contentView, AnchorDesc anchor, PopupPoint out) {
+            // 展示在上方，箭头朝下
+            out.locationX = anchor.x - (contentView.width / 2);
+            out.locationY = anchor.y - (anchor.height / 2) - contentView.height;
+        }
+
+    }
+
+    private static class GravityBottomProcessor extends GravityTopBottomProcessor {
+
+        @Override
+        void location(ContentViewDesc contentView, AnchorDesc anchor, PopupPoint out) {
+            // 展示在下方，箭头朝上
+            out.locationX = anchor.x - (contentView.width / 2);
+            out.locationY = anchor.y + (anchor.height / 2);
+        }
+
+    }
+
+    private static class GravityLeftProcessor extends GravityProcessor {
+
+        @Override
+        void doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor, PopupPoint out) {
+
+            // 展示在左边
+            out.locationX = anchor.x - (anchor.width / 2) - contentView.width;
+            out.locationY = anchor.y - (contentView.height / 2);
+
+            // 左侧越界
+            int leftSpace = anchor.x - (anchor.width / 2);
+            out.outOfBounds = leftSpace < contentView.width;
+        }
+
+    }
+
+
+    private static class GravityRightProcessor extends GravityProcessor {
+
+        @Override
+        void doProcess(ContentViewDesc contentView, ArrowDesc arrow, WindowDesc window, AnchorDesc anchor, PopupPoint out) {
+
+            // 展示在右边
+            out.locationX = anchor.x + (anchor.width / 2);
+            out.locationY = anchor.y - (contentView.height / 2);
+
+            // 右侧越界
+            int leftPart = anchor.x + anchor.width / 2;
+            int rightSpace = window.width - leftPart;
+            out.outOfBounds = rightSpace < contentView.width;
+        }
+
+    }
+
+}
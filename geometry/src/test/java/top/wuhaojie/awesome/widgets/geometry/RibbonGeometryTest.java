@@ -0,0 +1,23 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RibbonGeometryTest {
+
+    @Test
+    public void bandHeight_isDistanceBetweenDiagonals() {
+        assertEquals(Math.sqrt(2) * 75, RibbonGeometry.bandHeight(300, 150), 0.01);
+    }
+
+    @Test
+    public void fits_rejectsTextTallerOrWiderThanBand() {
+        assertTrue(RibbonGeometry.fits(300, 150, 200, 60));
+        assertFalse(RibbonGeometry.fits(300, 150, 200, 120));
+        assertFalse(RibbonGeometry.fits(300, 150, 300, 60));
+    }
+
+}
@@ -0,0 +1,72 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TagGeometryTest {
+
+    @Test
+    public void contentWidth_sumsTagsAndSpaces() {
+        int[] widths = {100, 50, 80};
+
+        assertEquals((100 + 50) + (50 + 50) + (80 + 50) + 2 * 40, TagGeometry.contentWidth(widths, 3, 25, 40));
+        assertEquals(0, TagGeometry.contentWidth(widths, 0, 25, 40));
+    }
+
+    @Test
+    public void layout_placesTagsLeftToRight() {
+        int[] widths = {100, 50, 80};
+        float[] lefts = new float[3];
+
+        TagGeometry.layout(widths, 3, 25, 40, 10, lefts);
+
+        assertArrayEquals(new float[]{10, 10 + 150 + 40, 10 + 150 + 40 + 100 + 40}, lefts, 0);
+    }
+
+    @Test
+    public void breakLines_wrapsWhenLineIsFull() {
+        // 标签宽度 150、100、130、250
+        int[] widths = {100, 50, 80, 200};
+        float[] lefts = new float[4];
+        int[] lines = new int[4];
+
+        int lineCount = TagGeometry.breakLines(widths, 4, 25, 40, 300, lefts, lines);
+
+        assertEquals(3, lineCount);
+        assertArrayEquals(new float[]{0, 150 + 40, 0, 0}, lefts, 0);
+        assertArrayEquals(new int[]{0, 0, 1, 2}, lines);
+    }
+
+    @Test
+    public void breakLines_oversizedTagTakesItsOwnLine() {
+        int[] widths = {500, 50};
+        float[] lefts = new float[2];
+        int[] lines = new int[2];
+
+        assertEquals(2, TagGeometry.breakLines(widths, 2, 25, 40, 300, lefts, lines));
+        assertArrayEquals(new float[]{0, 0}, lefts, 0);
+        assertArrayEquals(new int[]{0, 1}, lines);
+    }
+
+    @Test
+    public void breakLines_noLimitKeepsSingleLine() {
+        int[] widths = {100, 50, 80};
+        float[] lefts = new float[3];
+        float[] expected = new float[3];
+        int[] lines = new int[3];
+
+        assertEquals(1, TagGeometry.breakLines(widths, 3, 25, 40, 0, lefts, lines));
+        TagGeometry.layout(widths, 3, 25, 40, 0, expected);
+        assertArrayEquals(expected, lefts, 0);
+        assertEquals(0, TagGeometry.breakLines(widths, 0, 25, 40, 0, lefts, lines));
+    }
+
+    @Test
+    public void linesHeight_addsLineSpaces() {
+        assertEquals(3 * 90 + 2 * 20, TagGeometry.linesHeight(3, 90, 20));
+        assertEquals(0, TagGeometry.linesHeight(0, 90, 20));
+    }
+
+}
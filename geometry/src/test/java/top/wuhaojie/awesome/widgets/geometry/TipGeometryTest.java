@@ -0,0 +1,57 @@
+package top.wuhaojie.awesome.widgets.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TipGeometryTest {
+
+    private final TipGeometry.WindowDesc window = new TipGeometry.WindowDesc(1080, 1920);
+
+    private final TipGeometry.ArrowDesc arrow = new TipGeometry.ArrowDesc(20, 10);
+
+    private final TipGeometry.ContentViewDesc content = new TipGeometry.ContentViewDesc(400, 100, 10, 10, 20, 20);
+
+    @Test
+    public void prepareGravity_resolvesTowardsLargerSpace() {
+        TipGeometry.AnchorDesc top = new TipGeometry.AnchorDesc(540, 100, 100, 50);
+        TipGeometry.AnchorDesc bottom = new TipGeometry.AnchorDesc(540, 1800, 100, 50);
+        TipGeometry.AnchorDesc left = new TipGeometry.AnchorDesc(100, 960, 100, 50);
+
+        assertEquals(TipGeometry.BOTTOM, TipGeometry.prepareGravity(TipGeometry.VERTICAL, window, top));
+        assertEquals(TipGeometry.TOP, TipGeometry.prepareGravity(TipGeometry.VERTICAL, window, bottom));
+        assertEquals(TipGeometry.RIGHT, TipGeometry.prepareGravity(TipGeometry.HORIZONTAL, window, left));
+        assertEquals(TipGeometry.LEFT, TipGeometry.prepareGravity(TipGeometry.LEFT, window, left));
+    }
+
+    @Test
+    public void process_centersArrowWhenSpaceIsEnough() {
+        TipGeometry.AnchorDesc anchor = new TipGeometry.AnchorDesc(540, 500, 100, 50);
+
+        TipGeometry.PopupPoint point = TipGeometry.process(TipGeometry.BOTTOM, content, arrow, window, anchor);
+
+        assertEquals(200 - 20 - 10, point.arrowX);
+        assertEquals(540 - 200, point.locationX);
+        assertEquals(500 + 25, point.locationY);
+    }
+
+    @Test
+    public void process_clampsArrowNearWindowEdges() {
+        TipGeometry.AnchorDesc leftEdge = new TipGeometry.AnchorDesc(5, 500, 10, 50);
+        TipGeometry.AnchorDesc rightEdge = new TipGeometry.AnchorDesc(1075, 500, 10, 50);
+
+        assertEquals(0, TipGeometry.process(TipGeometry.TOP, content, arrow, window, leftEdge).arrowX);
+        assertEquals(400 - 40 - 20, TipGeometry.process(TipGeometry.TOP, content, arrow, window, rightEdge).arrowX);
+    }
+
+    @Test
+    public void process_reportsHorizontalOverflow() {
+        TipGeometry.AnchorDesc anchor = new TipGeometry.AnchorDesc(200, 500, 100, 50);
+
+        assertTrue(TipGeometry.process(TipGeometry.LEFT, content, arrow, window, anchor).outOfBounds);
+        assertFalse(TipGeometry.process(TipGeometry.RIGHT, content, arrow, window, anchor).outOfBounds);
+    }
+
+}